@@ -0,0 +1,84 @@
+package com.aiassistant.adapter;
+
+import com.aiassistant.bench.Fixtures;
+import com.aiassistant.config.ModelProviderProperties;
+import com.aiassistant.model.FaqDoc;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Everything RemoteModelAdapter does per request besides waiting on the provider.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class RemoteModelAdapterBenchmark {
+
+    private static final String SYSTEM_PROMPT =
+            "You are a helpful support assistant. Answer only from the knowledge base.";
+    private static final String QUERY = "How do I reset my password if the email never arrives?";
+
+    private RemoteModelAdapter adapter;
+    private List<String> streamLines;
+    private String singleEmbedding;
+    private String batchEmbeddings;
+    private List<FaqDoc> docs;
+    private List<String> history;
+    private String userPrompt;
+
+    @Setup
+    public void setUp() {
+        // no calls go out, the web client and query cache are never touched
+        adapter = new RemoteModelAdapter(null, new ObjectMapper(), new ModelProviderProperties(), null);
+        streamLines = Fixtures.chatStreamLines();
+        singleEmbedding = Fixtures.embeddingResponse(1);
+        // the indexing batch size used by EmbeddingService
+        batchEmbeddings = Fixtures.embeddingResponse(50);
+        docs = Fixtures.docs(10);
+        history = Fixtures.history(5);
+        userPrompt = adapter.buildUserPrompt(QUERY, docs);
+    }
+
+    // one whole streamed answer, about 65 SSE chunks
+    @Benchmark
+    public void parseStreamChunks(Blackhole bh) {
+        for (String line : streamLines) {
+            bh.consume(adapter.extractTextFromStreamChunk(line));
+        }
+    }
+
+    @Benchmark
+    public float[] parseQueryEmbedding() {
+        return adapter.extractOpenAIEmbedding(singleEmbedding);
+    }
+
+    @Benchmark
+    public List<float[]> parseBatchEmbeddings() {
+        return adapter.extractOpenAIEmbeddings(batchEmbeddings);
+    }
+
+    @Benchmark
+    public String buildUserPrompt() {
+        return adapter.buildUserPrompt(QUERY, docs);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> buildMessageHistory() {
+        return adapter.buildMessageHistory(SYSTEM_PROMPT, userPrompt, history);
+    }
+}
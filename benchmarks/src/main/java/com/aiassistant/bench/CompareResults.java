@@ -0,0 +1,83 @@
+package com.aiassistant.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH result files written with {@code -rf json}, benchmark by benchmark:
+ * <pre>
+ * java -cp target/benchmarks.jar com.aiassistant.bench.CompareResults before.json after.json
+ * </pre>
+ * A change counts when the two 99.9% confidence intervals don't overlap; anything else is noise.
+ */
+public final class CompareResults {
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: CompareResults <baseline.json> <candidate.json>");
+            System.exit(2);
+        }
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> candidate = read(new File(args[1]));
+
+        System.out.printf("%-70s %22s %22s %9s%n", "benchmark", "baseline", "candidate", "change");
+        for (Map.Entry<String, Result> entry : baseline.entrySet()) {
+            Result before = entry.getValue();
+            Result after = candidate.get(entry.getKey());
+            if (after == null) {
+                System.out.printf("%-70s %22s %22s%n", entry.getKey(), before, "missing");
+                continue;
+            }
+            double change = (after.score() - before.score()) / before.score() * 100;
+            boolean overlaps = after.score() - after.error() <= before.score() + before.error()
+                    && before.score() - before.error() <= after.score() + after.error();
+            String verdict = overlaps ? "" : (after.better(before) ? "  faster" : "  SLOWER");
+            System.out.printf("%-70s %22s %22s %+8.1f%%%s%n", entry.getKey(), before, after, change, verdict);
+        }
+        for (String key : candidate.keySet()) {
+            if (!baseline.containsKey(key)) {
+                System.out.printf("%-70s %22s %22s%n", key, "missing", candidate.get(key));
+            }
+        }
+    }
+
+    private static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            String name = run.path("benchmark").asText().replace("com.aiassistant.", "");
+            Map<String, String> params = new TreeMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = run.path("params").fields(); it.hasNext();) {
+                Map.Entry<String, JsonNode> param = it.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            String key = params.isEmpty() ? name : name + " " + params;
+            JsonNode metric = run.path("primaryMetric");
+            results.put(key, new Result(run.path("mode").asText(), metric.path("score").asDouble(),
+                    metric.path("scoreError").asDouble(0), metric.path("scoreUnit").asText()));
+        }
+        return results;
+    }
+
+    private record Result(String mode, double score, double error, String unit) {
+
+        // thrpt is better when higher, avgt / sample / ss when lower
+        boolean better(Result other) {
+            return "thrpt".equals(mode) ? score > other.score : score < other.score;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.3f +- %.3f %s", score, Double.isNaN(error) ? 0 : error, unit);
+        }
+    }
+}
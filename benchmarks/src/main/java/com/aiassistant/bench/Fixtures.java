@@ -0,0 +1,129 @@
+package com.aiassistant.bench;
+
+import com.aiassistant.model.FaqDoc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Benchmark inputs. Texts come from src/main/resources/fixtures, everything random is seeded so every
+ * run scores the same data.
+ */
+public final class Fixtures {
+
+    public static final int DIMENSIONS = 768;
+    private static final long SEED = 42;
+
+    private Fixtures() {
+    }
+
+    public static String resource(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No fixture " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // the FAQ page a typical client uploads, about 2 KB
+    public static String smallDocument() {
+        return resource("faq-small.md");
+    }
+
+    // a long manual as extracted from a PDF: the product guide repeated with numbered chapters
+    public static String largeDocument(int minChars) {
+        String guide = resource("product-guide.md");
+        StringBuilder sb = new StringBuilder(minChars + guide.length());
+        for (int chapter = 1; sb.length() < minChars; chapter++) {
+            sb.append("# Chapter ").append(chapter).append("\n\n").append(guide).append("\n\n");
+        }
+        return sb.toString();
+    }
+
+    // SSE lines of a streamed chat completion, as the chat endpoint sends them
+    public static List<String> chatStreamLines() {
+        return resource("chat-stream.txt").lines().filter(line -> !line.isBlank()).toList();
+    }
+
+    // normally distributed components, scaled to unit length like the embedding models' output
+    public static float[] vector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] /= (float) Math.sqrt(norm);
+        }
+        return vector;
+    }
+
+    public static List<float[]> vectors(int count) {
+        Random random = new Random(SEED);
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            vectors.add(vector(random));
+        }
+        return vectors;
+    }
+
+    // an OpenAI-compatible embeddings response body with one embedding per input
+    public static String embeddingResponse(int count) {
+        Random random = new Random(SEED);
+        StringBuilder sb = new StringBuilder(count * DIMENSIONS * 12 + 200);
+        sb.append("{\"object\":\"list\",\"data\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"object\":\"embedding\",\"index\":").append(i).append(",\"embedding\":[");
+            float[] vector = vector(random);
+            for (int d = 0; d < vector.length; d++) {
+                if (d > 0) {
+                    sb.append(',');
+                }
+                sb.append(String.format(Locale.ROOT, "%.9f", vector[d]));
+            }
+            sb.append("]}");
+        }
+        sb.append("],\"model\":\"text-embedding-3-small\",\"usage\":{\"prompt_tokens\":")
+                .append(count * 120).append(",\"total_tokens\":").append(count * 120).append("}}");
+        return sb.toString();
+    }
+
+    // retrieved documents as they go into the prompt, taken from the FAQ fixture
+    public static List<FaqDoc> docs(int count) {
+        String[] entries = smallDocument().split("\n\n");
+        List<FaqDoc> docs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] qa = entries[i % entries.length].split("\nA: ", 2);
+            FaqDoc doc = new FaqDoc();
+            doc.setId(100L + i);
+            doc.setQuestion(qa[0].replaceFirst("^Q: ", ""));
+            doc.setAnswer(qa.length > 1 ? qa[1] : qa[0]);
+            docs.add(doc);
+        }
+        return docs;
+    }
+
+    // alternating "user: ..." / "assistant: ..." lines as the widget sends them
+    public static List<String> history(int turns) {
+        List<FaqDoc> docs = docs(turns);
+        List<String> history = new ArrayList<>(turns * 2);
+        for (FaqDoc doc : docs) {
+            history.add("user: " + doc.getQuestion());
+            history.add("assistant: " + doc.getAnswer());
+        }
+        return history;
+    }
+}
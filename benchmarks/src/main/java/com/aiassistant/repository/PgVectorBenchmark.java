@@ -0,0 +1,67 @@
+package com.aiassistant.repository;
+
+import com.aiassistant.bench.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding a query vector for pgvector. This replaced vectorToPgVectorString: binary is what the driver
+ * sends on prepared connections, text is its fallback and what the old string building produced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PgVectorBenchmark {
+
+    private PgVector vector;
+    private byte[] binary;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        vector = new PgVector(Fixtures.vectors(1).get(0));
+        binary = new byte[vector.lengthInBytes()];
+        vector.toBytes(binary, 0);
+        text = vector.getValue();
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        byte[] bytes = new byte[vector.lengthInBytes()];
+        vector.toBytes(bytes, 0);
+        return bytes;
+    }
+
+    @Benchmark
+    public String encodeText() {
+        return vector.getValue();
+    }
+
+    @Benchmark
+    public float[] decodeBinary() throws SQLException {
+        PgVector decoded = new PgVector();
+        decoded.setByteValue(binary, 0);
+        return decoded.toArray();
+    }
+
+    @Benchmark
+    public float[] decodeText() throws SQLException {
+        PgVector decoded = new PgVector();
+        decoded.setValue(text);
+        return decoded.toArray();
+    }
+}
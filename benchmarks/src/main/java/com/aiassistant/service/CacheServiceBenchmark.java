@@ -0,0 +1,67 @@
+package com.aiassistant.service;
+
+import com.aiassistant.bench.Fixtures;
+import com.aiassistant.cache.CacheTier;
+import com.aiassistant.cache.InProcessCacheStore;
+import com.aiassistant.dto.AnswerDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Semantic cache lookups of one client. A miss compares the query with every cached vector, which is
+ * what most chat requests pay; a hit on the last entry added costs the same scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class CacheServiceBenchmark {
+
+    private static final Long CLIENT_ID = 1L;
+
+    @Param({ "100", "1000", "10000" })
+    public int cacheSize;
+
+    private CacheService cacheService;
+    private float[] missQuery;
+    private float[] hitQuery;
+
+    @Setup
+    public void setUp() {
+        cacheService = new CacheService(new CacheTier(new InProcessCacheStore()), new ObjectMapper(),
+                cacheSize);
+        List<float[]> vectors = Fixtures.vectors(cacheSize);
+        for (int i = 0; i < vectors.size(); i++) {
+            cacheService.addToCache(CLIENT_ID, vectors.get(i), new AnswerDTO("Cached answer " + i, List.of(), 1.0));
+        }
+        missQuery = Fixtures.vector(new Random(7));
+        hitQuery = vectors.get(vectors.size() - 1).clone();
+    }
+
+    @Benchmark
+    public Optional<AnswerDTO> miss() {
+        return cacheService.findInCache(CLIENT_ID, missQuery);
+    }
+
+    @Benchmark
+    public Optional<AnswerDTO> hit() {
+        return cacheService.findInCache(CLIENT_ID, hitQuery);
+    }
+}
@@ -0,0 +1,43 @@
+package com.aiassistant.service;
+
+import com.aiassistant.bench.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class DocumentChunkerBenchmark {
+
+    // small: the 2 KB FAQ fixture, large: about 1 MB of manual
+    @Param({ "small", "large" })
+    public String document;
+
+    private final DocumentChunker chunker = new DocumentChunker();
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = "small".equals(document) ? Fixtures.smallDocument() : Fixtures.largeDocument(1_000_000);
+    }
+
+    @Benchmark
+    public List<DocumentChunker.DocumentChunk> chunkDocument() {
+        return chunker.chunkDocument(text, 1L);
+    }
+}
@@ -0,0 +1,64 @@
+package com.aiassistant.vector;
+
+import com.aiassistant.bench.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One query against many stored vectors with each kernel. Run with -p kernels=simd,scalar to see what
+ * the Vector API buys on the machine at hand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class VectorMathBenchmark {
+
+    @Param({ "simd", "scalar" })
+    public String kernels;
+
+    @Param({ "1000", "100000" })
+    public int rows;
+
+    private VectorKernels impl;
+    private float[] query;
+    private float[] matrix;
+    private float[] scores;
+
+    @Setup
+    public void setUp() {
+        impl = "simd".equals(kernels) ? new SimdKernels() : new ScalarKernels();
+        List<float[]> vectors = Fixtures.vectors(rows + 1);
+        query = vectors.get(rows);
+        matrix = new float[rows * Fixtures.DIMENSIONS];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(vectors.get(i), 0, matrix, i * Fixtures.DIMENSIONS, Fixtures.DIMENSIONS);
+        }
+        scores = new float[rows];
+    }
+
+    @Benchmark
+    public float[] dotAll() {
+        impl.dotAll(query, matrix, rows, scores);
+        return scores;
+    }
+
+    @Benchmark
+    public float dot() {
+        return impl.dot(query, 0, matrix, 0, query.length);
+    }
+}
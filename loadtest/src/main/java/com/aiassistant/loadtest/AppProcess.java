@@ -0,0 +1,109 @@
+package com.aiassistant.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The application under test, started from its jar in a child JVM with the model endpoints pointed at the
+ * stub. Output goes to loadtest-app.log in the working directory.
+ */
+final class AppProcess implements AutoCloseable {
+
+    static final Path LOG = Path.of("loadtest-app.log");
+
+    private final Process process;
+    private final String baseUrl;
+
+    private AppProcess(Process process, String baseUrl) {
+        this.process = process;
+        this.baseUrl = baseUrl;
+    }
+
+    static AppProcess start(LoadTestOptions options, StubModelServer stub) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("--add-modules");
+        command.add("jdk.incubator.vector");
+        command.add("-jar");
+        command.add(options.appJar().toAbsolutePath().toString());
+        command.add("--server.port=" + options.appPort());
+        if (options.postgres()) {
+            // prod is the profile that runs the postgresql migrations (see FlywayConfig) and turns on the
+            // vector index; the datasource it reads from SPRING_DATASOURCE_URL is given here instead
+            command.add("--spring.profiles.active=prod");
+            command.add("--spring.datasource.url=" + options.dbUrl());
+            command.add("--spring.datasource.username=" + options.dbUser());
+            command.add("--spring.datasource.password=" + options.dbPassword());
+        } else {
+            // the dev profile runs on in-memory H2, where vector search is not available
+            command.add("--spring.profiles.active=dev");
+            command.add("--logging.level.org.springframework.web=INFO");
+            command.add("--logging.level.org.hibernate.SQL=INFO");
+        }
+        command.add("--model.adapter=remote");
+        command.add("--model.remote.chat.endpoint=" + stub.chatEndpoint());
+        command.add("--model.remote.chat.key=stub");
+        command.add("--model.remote.embedding.endpoint=" + stub.embeddingEndpoint());
+        command.add("--model.remote.embedding.key=stub");
+        // the harness is one caller sending everything with one api key
+        command.add("--app.rate-limit.enabled=false");
+
+        ProcessBuilder builder = new ProcessBuilder(command);
+        if (options.postgres()) {
+            builder.environment().put("SPRING_DATASOURCE_URL", options.dbUrl());
+        }
+        Process process = builder
+                .redirectErrorStream(true)
+                .redirectOutput(LOG.toFile())
+                .start();
+        return new AppProcess(process, "http://127.0.0.1:" + options.appPort());
+    }
+
+    String baseUrl() {
+        return baseUrl;
+    }
+
+    // any HTTP answer means the application is serving requests
+    static void awaitReady(String baseUrl, Duration timeout, AppProcess process) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        HttpRequest probe = HttpRequest.newBuilder(URI.create(baseUrl + "/api/widget/settings?apiKey=probe"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        Instant deadline = Instant.now().plus(timeout);
+        while (Instant.now().isBefore(deadline)) {
+            if (process != null && !process.process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.process.exitValue()
+                        + ", see " + LOG.toAbsolutePath());
+            }
+            try {
+                client.send(probe, HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (IOException e) {
+                Thread.sleep(500);
+            }
+        }
+        throw new IllegalStateException("Application not reachable at " + baseUrl + " after " + timeout);
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.aiassistant.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Summary of one measured run: outcomes, time to first token, total stream time and token rates. Latency
+ * percentiles cover successful streams only, failures are counted separately.
+ */
+final class LatencyReport {
+
+    private final Map<String, Object> summary = new LinkedHashMap<>();
+
+    LatencyReport(List<WidgetLoadDriver.Sample> samples, StubModelServer stub, Map<String, String> options) {
+        Map<WidgetLoadDriver.Outcome, Integer> outcomes = new EnumMap<>(WidgetLoadDriver.Outcome.class);
+        for (WidgetLoadDriver.Outcome outcome : WidgetLoadDriver.Outcome.values()) {
+            outcomes.put(outcome, 0);
+        }
+        samples.forEach(s -> outcomes.merge(s.outcome(), 1, Integer::sum));
+        List<WidgetLoadDriver.Sample> ok = samples.stream()
+                .filter(s -> s.outcome() == WidgetLoadDriver.Outcome.OK && s.firstTokenNanos() > 0)
+                .toList();
+
+        long first = samples.stream().mapToLong(WidgetLoadDriver.Sample::startNanos).min().orElse(0);
+        long last = samples.stream().mapToLong(WidgetLoadDriver.Sample::endNanos).max().orElse(0);
+        double wallSeconds = Math.max(1e-9, (last - first) / 1e9);
+        long tokens = ok.stream().mapToLong(WidgetLoadDriver.Sample::tokens).sum();
+
+        summary.put("requests", samples.size());
+        outcomes.forEach((outcome, count) -> summary.put(outcome.name().toLowerCase(), count));
+        summary.put("wallSeconds", round(wallSeconds));
+        summary.put("requestsPerSecond", round(samples.size() / wallSeconds));
+        summary.put("ttftMs", percentiles(ok, WidgetLoadDriver.Sample::ttftMs));
+        summary.put("totalMs", percentiles(ok, WidgetLoadDriver.Sample::totalMs));
+        // per stream, from its first token to its end
+        summary.put("streamTokensPerSecond", percentiles(ok.stream().filter(s -> s.endNanos() > s.firstTokenNanos())
+                .toList(), s -> s.tokens() / ((s.endNanos() - s.firstTokenNanos()) / 1e9)));
+        summary.put("aggregateTokensPerSecond", round(tokens / wallSeconds));
+        if (stub != null) {
+            Map<String, Object> model = new LinkedHashMap<>();
+            model.put("chatRequests", stub.chatRequests());
+            model.put("chatFailures", stub.chatFailures());
+            model.put("embeddingRequests", stub.embeddingRequests());
+            summary.put("stub", model);
+        }
+        Map<String, String> shown = new LinkedHashMap<>(options);
+        shown.remove("db-password");
+        summary.put("options", shown);
+    }
+
+    void print() {
+        System.out.println();
+        System.out.printf("Requests        %s (ok %s, error %s, shed %s, timeout %s) in %ss, %s req/s%n",
+                summary.get("requests"), summary.get("ok"), summary.get("error"), summary.get("shed"),
+                summary.get("timeout"), summary.get("wallSeconds"), summary.get("requestsPerSecond"));
+        printPercentiles("Time to first token (ms)", "ttftMs");
+        printPercentiles("Total stream (ms)", "totalMs");
+        printPercentiles("Tokens/s per stream", "streamTokensPerSecond");
+        System.out.printf("Tokens/s overall %s%n", summary.get("aggregateTokensPerSecond"));
+        if (summary.containsKey("stub")) {
+            System.out.printf("Model stub      %s (whole run, with setup and warm-up)%n", summary.get("stub"));
+        }
+    }
+
+    void write(Path file) throws IOException {
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), summary);
+        System.out.printf("Report written to %s%n", file.toAbsolutePath());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void printPercentiles(String label, String key) {
+        Map<String, Double> p = (Map<String, Double>) summary.get(key);
+        if (p.isEmpty()) {
+            System.out.printf("%-25s no successful streams%n", label);
+            return;
+        }
+        System.out.printf("%-25s p50 %9.1f   p90 %9.1f   p99 %9.1f   max %9.1f%n", label, p.get("p50"),
+                p.get("p90"), p.get("p99"), p.get("max"));
+    }
+
+    private static Map<String, Double> percentiles(List<WidgetLoadDriver.Sample> samples,
+            ToDoubleFunction<WidgetLoadDriver.Sample> metric) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        if (samples.isEmpty()) {
+            return result;
+        }
+        double[] values = samples.stream().mapToDouble(metric).sorted().toArray();
+        result.put("p50", round(percentile(values, 0.50)));
+        result.put("p90", round(percentile(values, 0.90)));
+        result.put("p99", round(percentile(values, 0.99)));
+        result.put("max", round(values[values.length - 1]));
+        result.put("mean", round(Arrays.stream(values).average().orElse(0)));
+        return result;
+    }
+
+    // nearest rank
+    private static double percentile(double[] sorted, double p) {
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.aiassistant.loadtest;
+
+import java.util.List;
+
+/**
+ * End-to-end load test of the chat pipeline without live model providers:
+ * <ol>
+ * <li>starts {@link StubModelServer} in this JVM,</li>
+ * <li>starts the application from its jar against H2 or a local Postgres with the model endpoints pointed at
+ * the stub (or uses one already running at {@code --target-url}),</li>
+ * <li>creates a client, imports the FAQ fixture and waits for it to be indexed,</li>
+ * <li>sends warm-up and then measured questions to /api/widget/stream-chat and reports time to first
+ * token, stream durations and token rates.</li>
+ * </ol>
+ * See loadtest/README.md for the options.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestOptions.usage());
+            System.exit(2);
+            return;
+        }
+
+        try (StubModelServer stub = new StubModelServer(options.stubPort(), options.stubBehaviour())) {
+            System.out.printf("Model stub at %s and %s%n", stub.chatEndpoint(), stub.embeddingEndpoint());
+            AppProcess app = options.targetUrl() == null ? AppProcess.start(options, stub) : null;
+            try {
+                String baseUrl = app != null ? app.baseUrl() : options.targetUrl();
+                System.out.printf("Waiting for the application at %s%n", baseUrl);
+                AppProcess.awaitReady(baseUrl, options.startupTimeout(), app);
+
+                WidgetLoadDriver driver = new WidgetLoadDriver(baseUrl, options.requestTimeout());
+                // a running application may use other model endpoints, then indexing can't be observed
+                driver.setUpClient(app != null ? stub : null);
+
+                if (options.warmupRequests() > 0) {
+                    System.out.printf("Warm-up: %d requests%n", options.warmupRequests());
+                    driver.run(options.warmupRequests(), options.concurrency(), options.repeatRatio());
+                }
+                System.out.printf("Measuring: %d requests, %d concurrent%n", options.requests(),
+                        options.concurrency());
+                List<WidgetLoadDriver.Sample> samples = driver.run(options.requests(), options.concurrency(),
+                        options.repeatRatio());
+
+                LatencyReport report = new LatencyReport(samples, app != null ? stub : null, options.asMap());
+                report.print();
+                if (options.report() != null) {
+                    report.write(options.report());
+                }
+            } finally {
+                if (app != null) {
+                    app.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.aiassistant.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line of the load test, {@code --name=value} each. Every option has a default, so
+ * {@code java -jar loadtest.jar --app-jar=../target/ai-assistant-0.0.1-SNAPSHOT.jar} is a complete run.
+ */
+final class LoadTestOptions {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        // application: launched from a jar, or already running at target-url
+        DEFAULTS.put("app-jar", "");
+        DEFAULTS.put("target-url", "");
+        DEFAULTS.put("app-port", "18080");
+        DEFAULTS.put("db", "h2"); // h2 or postgres
+        DEFAULTS.put("db-url", "jdbc:postgresql://localhost:5432/ai_assistant");
+        DEFAULTS.put("db-user", "postgres");
+        DEFAULTS.put("db-password", "postgres");
+        DEFAULTS.put("startup-timeout-seconds", "120");
+        // model stub
+        DEFAULTS.put("stub-port", "0"); // 0 = any free port
+        DEFAULTS.put("stub-first-token-ms", "300");
+        DEFAULTS.put("stub-tokens-per-second", "40");
+        DEFAULTS.put("stub-jitter-ms", "10");
+        DEFAULTS.put("stub-answer-tokens", "80");
+        DEFAULTS.put("stub-error-ratio", "0");
+        DEFAULTS.put("stub-429-ratio", "0");
+        DEFAULTS.put("stub-embedding-ms", "25");
+        DEFAULTS.put("stub-dimensions", "768");
+        // load
+        DEFAULTS.put("concurrency", "20");
+        DEFAULTS.put("requests", "500");
+        DEFAULTS.put("warmup-requests", "50");
+        DEFAULTS.put("repeat-ratio", "0"); // share of requests repeating an earlier question (query embedding cache)
+        DEFAULTS.put("request-timeout-seconds", "60");
+        DEFAULTS.put("report", ""); // also write the report as json to this file
+    }
+
+    private final Map<String, String> values;
+
+    private LoadTestOptions(Map<String, String> values) {
+        this.values = values;
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if (!DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option --" + name);
+            }
+            values.put(name, arg.substring(arg.indexOf('=') + 1));
+        }
+        LoadTestOptions options = new LoadTestOptions(values);
+        if (options.appJar() == null && options.targetUrl() == null) {
+            throw new IllegalArgumentException("Either --app-jar or --target-url is required");
+        }
+        return options;
+    }
+
+    static String usage() {
+        StringBuilder sb = new StringBuilder("Options (defaults in brackets):\n");
+        DEFAULTS.forEach((name, value) -> sb.append("  --").append(name).append(" [").append(value).append("]\n"));
+        return sb.toString();
+    }
+
+    Path appJar() {
+        String value = values.get("app-jar");
+        return value.isBlank() ? null : Path.of(value);
+    }
+
+    String targetUrl() {
+        String value = values.get("target-url");
+        return value.isBlank() ? null : value.replaceAll("/+$", "");
+    }
+
+    int appPort() {
+        return integer("app-port");
+    }
+
+    boolean postgres() {
+        return "postgres".equalsIgnoreCase(values.get("db"));
+    }
+
+    String dbUrl() {
+        return values.get("db-url");
+    }
+
+    String dbUser() {
+        return values.get("db-user");
+    }
+
+    String dbPassword() {
+        return values.get("db-password");
+    }
+
+    Duration startupTimeout() {
+        return Duration.ofSeconds(integer("startup-timeout-seconds"));
+    }
+
+    int stubPort() {
+        return integer("stub-port");
+    }
+
+    StubModelServer.Behaviour stubBehaviour() {
+        return new StubModelServer.Behaviour(integer("stub-first-token-ms"), decimal("stub-tokens-per-second"),
+                integer("stub-jitter-ms"), integer("stub-answer-tokens"), decimal("stub-error-ratio"),
+                decimal("stub-429-ratio"), integer("stub-embedding-ms"), integer("stub-dimensions"));
+    }
+
+    int concurrency() {
+        return integer("concurrency");
+    }
+
+    int requests() {
+        return integer("requests");
+    }
+
+    int warmupRequests() {
+        return integer("warmup-requests");
+    }
+
+    double repeatRatio() {
+        return decimal("repeat-ratio");
+    }
+
+    Duration requestTimeout() {
+        return Duration.ofSeconds(integer("request-timeout-seconds"));
+    }
+
+    Path report() {
+        String value = values.get("report");
+        return value.isBlank() ? null : Path.of(value);
+    }
+
+    Map<String, String> asMap() {
+        return values;
+    }
+
+    private int integer(String name) {
+        return Integer.parseInt(values.get(name).trim());
+    }
+
+    private double decimal(String name) {
+        return Double.parseDouble(values.get(name).trim());
+    }
+}
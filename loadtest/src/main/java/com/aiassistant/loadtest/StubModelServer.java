@@ -0,0 +1,225 @@
+package com.aiassistant.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the OpenAI-compatible endpoints RemoteModelAdapter calls:
+ * <ul>
+ * <li>{@code POST /v1/chat/completions} streams an answer as SSE chunks at a configured pace, or fails
+ * with 500 / 429 for a configured share of requests.</li>
+ * <li>{@code POST /v1/embeddings} returns unit vectors derived from each input's text, so the same text
+ * always gets the same embedding and semantic cache hits behave as in production.</li>
+ * </ul>
+ */
+final class StubModelServer implements AutoCloseable {
+
+    private static final String[] ANSWER_WORDS = ("To reset your password open the sign-in page and click "
+            + "Forgot password. Enter the email address on your account and we will send you a reset link that "
+            + "is valid for thirty minutes. If it does not arrive check your spam folder or ask an administrator "
+            + "to send a new one from the Members page.").split(" ");
+
+    /**
+     * How the stub behaves. Token gaps are {@code 1000 / tokensPerSecond} ms plus or minus up to
+     * {@code jitterMs}.
+     */
+    record Behaviour(int firstTokenMs, double tokensPerSecond, int jitterMs, int answerTokens, double errorRatio,
+            double tooManyRequestsRatio, int embeddingMs, int dimensions) {
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Behaviour behaviour;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong chatRequests = new AtomicLong();
+    private final AtomicLong chatFailures = new AtomicLong();
+    private final AtomicLong embeddingRequests = new AtomicLong();
+    private final AtomicLong embeddedTexts = new AtomicLong();
+
+    StubModelServer(int port, Behaviour behaviour) throws IOException {
+        this.behaviour = behaviour;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.createContext("/v1/chat/completions", this::chat);
+        server.createContext("/v1/embeddings", this::embeddings);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String chatEndpoint() {
+        return baseUrl() + "/v1/chat/completions";
+    }
+
+    String embeddingEndpoint() {
+        return baseUrl() + "/v1/embeddings";
+    }
+
+    long chatRequests() {
+        return chatRequests.get();
+    }
+
+    long chatFailures() {
+        return chatFailures.get();
+    }
+
+    long embeddingRequests() {
+        return embeddingRequests.get();
+    }
+
+    long embeddedTexts() {
+        return embeddedTexts.get();
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void chat(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            chatRequests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < behaviour.tooManyRequestsRatio()) {
+                chatFailures.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendJson(exchange, 429, error("rate_limit_exceeded", "Rate limit reached, retry after 1s"));
+                return;
+            }
+            if (roll < behaviour.tooManyRequestsRatio() + behaviour.errorRatio()) {
+                chatFailures.incrementAndGet();
+                sendJson(exchange, 500, error("server_error", "The server had an error processing the request"));
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            String id = "chatcmpl-stub" + chatRequests.get();
+            sleep(behaviour.firstTokenMs());
+            event(out, chunk(id, "{\"role\":\"assistant\",\"content\":\"\"}", null));
+            for (int i = 0; i < behaviour.answerTokens(); i++) {
+                if (i > 0) {
+                    sleep(tokenGapMs());
+                }
+                String word = (i > 0 ? " " : "") + ANSWER_WORDS[i % ANSWER_WORDS.length];
+                event(out, chunk(id, "{\"content\":" + objectMapper.writeValueAsString(word) + "}", null));
+            }
+            event(out, chunk(id, "{}", "\"stop\""));
+            event(out, "[DONE]");
+        }
+    }
+
+    private void embeddings(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            embeddingRequests.incrementAndGet();
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            JsonNode input = request.path("input");
+            sleep(behaviour.embeddingMs());
+
+            ObjectNode response = objectMapper.createObjectNode();
+            response.put("object", "list");
+            ArrayNode data = response.putArray("data");
+            if (input.isArray()) {
+                for (int i = 0; i < input.size(); i++) {
+                    addEmbedding(data, i, input.get(i).asText());
+                }
+            } else {
+                addEmbedding(data, 0, input.asText());
+            }
+            embeddedTexts.addAndGet(data.size());
+            response.put("model", request.path("model").asText("stub-embedding"));
+            sendJson(exchange, 200, response);
+        }
+    }
+
+    private void addEmbedding(ArrayNode data, int index, String text) {
+        ObjectNode item = data.addObject();
+        item.put("object", "embedding");
+        item.put("index", index);
+        ArrayNode embedding = item.putArray("embedding");
+        for (float value : embed(text)) {
+            embedding.add(value);
+        }
+    }
+
+    // deterministic: seeded by the text, normalized like a real model's output
+    private float[] embed(String text) {
+        Random random = new Random(text.hashCode() * 0x9E3779B97F4A7C15L);
+        float[] vector = new float[behaviour.dimensions()];
+        double norm = 0;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private long tokenGapMs() {
+        double gap = 1000 / behaviour.tokensPerSecond();
+        if (behaviour.jitterMs() > 0) {
+            gap += ThreadLocalRandom.current().nextInt(-behaviour.jitterMs(), behaviour.jitterMs() + 1);
+        }
+        return Math.max(0, Math.round(gap));
+    }
+
+    private String chunk(String id, String delta, String finishReason) {
+        return "{\"id\":\"" + id + "\",\"object\":\"chat.completion.chunk\",\"model\":\"stub-chat\",\"choices\":"
+                + "[{\"index\":0,\"delta\":" + delta + ",\"finish_reason\":" + finishReason + "}]}";
+    }
+
+    private ObjectNode error(String type, String message) {
+        ObjectNode body = objectMapper.createObjectNode();
+        ObjectNode error = body.putObject("error");
+        error.put("message", message);
+        error.put("type", type);
+        return body;
+    }
+
+    private static void event(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,211 @@
+package com.aiassistant.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Sets up a client with the FAQ fixture and sends widget questions to /api/widget/stream-chat from
+ * {@code concurrency} callers at once, timing each stream.
+ */
+final class WidgetLoadDriver {
+
+    // what ChatService streams instead of an answer when something failed or the model queue is full
+    private static final String FAILURE_TEXT = "having trouble";
+    private static final String SHED_TEXT = "answering a lot of questions";
+
+    enum Outcome {
+        OK, ERROR, SHED, TIMEOUT
+    }
+
+    // nanoTime based; firstTokenNanos is 0 when no data frame arrived
+    record Sample(long startNanos, long firstTokenNanos, long endNanos, int tokens, Outcome outcome) {
+
+        double ttftMs() {
+            return (firstTokenNanos - startNanos) / 1e6;
+        }
+
+        double totalMs() {
+            return (endNanos - startNanos) / 1e6;
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final String baseUrl;
+    private final Duration requestTimeout;
+    private final List<String> questions = readLines("questions.txt");
+    private final List<String> asked = new CopyOnWriteArrayList<>();
+    private String apiKey;
+
+    WidgetLoadDriver(String baseUrl, Duration requestTimeout) {
+        this.baseUrl = baseUrl;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Creates a client, imports the FAQ fixture and waits until the stub has seen no new embedding
+     * requests for a few seconds, i.e. the import's indexing has finished.
+     */
+    void setUpClient(StubModelServer stub) throws IOException, InterruptedException {
+        JsonNode created = postJson("/api/clients/create", null, null);
+        apiKey = created.path("apiKey").asText();
+        String clientId = created.path("clientId").asText();
+        String adminKey = created.path("adminKey").asText();
+
+        ObjectNode upload = objectMapper.createObjectNode();
+        ArrayNode entries = upload.putArray("entries");
+        try (InputStream in = resource("faqs.json")) {
+            objectMapper.readTree(in).forEach(entries::add);
+        }
+        JsonNode imported = postJson("/api/clients/" + clientId + "/faqs", adminKey, upload);
+        System.out.printf("Client %s created, %s FAQs imported%n", clientId, imported.path("imported").asText());
+
+        if (stub == null) {
+            Thread.sleep(5_000);
+            return;
+        }
+        long seen = -1;
+        Instant deadline = Instant.now().plusSeconds(120);
+        while (stub.embeddedTexts() != seen && Instant.now().isBefore(deadline)) {
+            seen = stub.embeddedTexts();
+            Thread.sleep(3_000);
+        }
+        System.out.printf("Indexing settled after %d embedded chunks%n", seen);
+    }
+
+    List<Sample> run(int requests, int concurrency, double repeatRatio) throws InterruptedException {
+        List<Sample> samples = Collections.synchronizedList(new ArrayList<>(requests));
+        AtomicInteger next = new AtomicInteger();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                callers.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < requests) {
+                        samples.add(send(question(i, repeatRatio)));
+                    }
+                });
+            }
+        }
+        return samples;
+    }
+
+    // a new wording per request unless it repeats one, so each request pays for its own embedding
+    private String question(int i, double repeatRatio) {
+        if (!asked.isEmpty() && ThreadLocalRandom.current().nextDouble() < repeatRatio) {
+            return asked.get(ThreadLocalRandom.current().nextInt(asked.size()));
+        }
+        String question = questions.get(i % questions.size()) + " (ref " + Integer.toHexString(
+                ThreadLocalRandom.current().nextInt()) + ")";
+        asked.add(question);
+        return question;
+    }
+
+    private Sample send(String question) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("apiKey", apiKey);
+        body.put("message", question);
+        body.putArray("history");
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/widget/stream-chat"))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+
+        long start = System.nanoTime();
+        long firstToken = 0;
+        int tokens = 0;
+        Outcome outcome = Outcome.OK;
+        try {
+            HttpResponse<Stream<String>> response = http.send(request, HttpResponse.BodyHandlers.ofLines());
+            if (response.statusCode() == 429) {
+                outcome = Outcome.SHED;
+            } else if (response.statusCode() >= 400) {
+                outcome = Outcome.ERROR;
+            }
+            try (Stream<String> lines = response.body()) {
+                for (String line : (Iterable<String>) lines::iterator) {
+                    if (!line.startsWith("data: ")) {
+                        continue;
+                    }
+                    String data = line.substring(6);
+                    if (firstToken == 0) {
+                        firstToken = System.nanoTime();
+                    }
+                    tokens++;
+                    if (data.startsWith("Error:") || data.contains(FAILURE_TEXT)) {
+                        outcome = Outcome.ERROR;
+                    } else if (data.contains(SHED_TEXT)) {
+                        outcome = Outcome.SHED;
+                    }
+                }
+            }
+        } catch (HttpTimeoutException e) {
+            outcome = Outcome.TIMEOUT;
+        } catch (IOException | UncheckedIOException e) {
+            outcome = e.getCause() instanceof HttpTimeoutException ? Outcome.TIMEOUT : Outcome.ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = Outcome.ERROR;
+        }
+        return new Sample(start, firstToken, System.nanoTime(), tokens, outcome);
+    }
+
+    private JsonNode postJson(String path, String adminKey, JsonNode body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body.toString()));
+        if (adminKey != null) {
+            request.header("X-Admin-Key", adminKey);
+        }
+        HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("POST " + path + " returned " + response.statusCode() + ": "
+                    + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private static List<String> readLines(String name) {
+        try (InputStream in = resource(name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().filter(l -> !l.isBlank()).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static InputStream resource(String name) {
+        InputStream in = WidgetLoadDriver.class.getResourceAsStream("/" + name);
+        if (in == null) {
+            throw new IllegalStateException("Missing resource " + name);
+        }
+        return in;
+    }
+}
@@ -1,7 +1,10 @@
 package com.aiassistant.adapter;
 
+import com.aiassistant.cache.TwoLevelCache;
 import com.aiassistant.config.ModelProviderProperties;
 import com.aiassistant.dto.AnswerDTO;
+import com.aiassistant.jfr.EmbeddingCallEvent;
+import com.aiassistant.jfr.ModelStreamEvent;
 import com.aiassistant.model.FaqDoc;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -13,6 +16,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
@@ -29,11 +33,14 @@ public class RemoteModelAdapter implements ModelAdapter {
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
     private final ModelProviderProperties properties;
+    private final TwoLevelCache<float[]> queryEmbeddingCache;
 
-    public RemoteModelAdapter(WebClient webClient, ObjectMapper objectMapper, ModelProviderProperties properties) {
+    public RemoteModelAdapter(WebClient webClient, ObjectMapper objectMapper, ModelProviderProperties properties,
+            TwoLevelCache<float[]> queryEmbeddingCache) {
         this.webClient = webClient;
         this.objectMapper = objectMapper;
         this.properties = properties;
+        this.queryEmbeddingCache = queryEmbeddingCache;
     }
 
     @Value("${app.prompts.standard}")
@@ -74,7 +81,8 @@ public class RemoteModelAdapter implements ModelAdapter {
                 .doOnError(e -> log.error("Error in streaming answer for client: {}", clientId, e))
                 .doOnComplete(() -> log.info("Stream completed for client: {}", clientId))
                 .retryWhen(Retry.backoff(maxRetryAttempts, Duration.ofSeconds(retryBackoffSeconds))
-                        .filter(throwable -> throwable instanceof Exception));
+                        .filter(throwable -> throwable instanceof Exception))
+                .transform(answer -> recordStream(answer, clientId, false));
     }
 
     @Override
@@ -102,6 +110,7 @@ public class RemoteModelAdapter implements ModelAdapter {
                 .doOnComplete(() -> log.info("Fallback stream completed for client: {}", clientId))
                 .retryWhen(Retry.backoff(maxRetryAttempts, Duration.ofSeconds(retryBackoffSeconds))
                         .filter(throwable -> throwable instanceof Exception))
+                .transform(answer -> recordStream(answer, clientId, true))
                 .onErrorResume(e -> {
                     log.error("Error calling chat API for fallback", e);
                     return Flux.just(
@@ -109,28 +118,54 @@ public class RemoteModelAdapter implements ModelAdapter {
                 });
     }
 
+    // a ModelStreamEvent per subscription, spanning the retries
+    private Flux<String> recordStream(Flux<String> answer, Long clientId, boolean fallback) {
+        return Flux.defer(() -> {
+            ModelStreamEvent event = ModelStreamEvent.start(clientId, fallback);
+            return answer
+                    .doOnNext(chunk -> event.chunk())
+                    .doFinally(signal -> event.complete(signal == SignalType.ON_COMPLETE ? "complete"
+                            : signal == SignalType.CANCEL ? "cancel" : "error"));
+        });
+    }
+
     @Override
-    @org.springframework.cache.annotation.Cacheable(value = "queryEmbeddings", key = "#text")
     public Mono<float[]> generateEmbedding(String text) {
+        return Mono.fromCallable(() -> queryEmbeddingCache.get(text))
+                .switchIfEmpty(Mono.defer(() -> fetchEmbedding(text)
+                        .doOnNext(vector -> {
+                            if (vector.length > 0) {
+                                queryEmbeddingCache.put(text, vector);
+                            }
+                        })));
+    }
+
+    private Mono<float[]> fetchEmbedding(String text) {
         log.info("Generating embedding for text length: {} (cache miss)", text.length());
         Map<String, Object> requestBody = Map.of(
                 "input", text,
                 "model", properties.getEmbedding().getModel());
 
-        return webClient.post()
-                .uri(properties.getEmbedding().getEndpoint())
-                .header("Authorization", "Bearer " + properties.getEmbedding().getKey())
-                .header("Content-Type", "application/json")
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(String.class)
-                .doOnSuccess(s -> log.info("Embedding received successfully"))
-                .map(this::extractOpenAIEmbedding)
-                .retryWhen(Retry.backoff(maxRetryAttempts, Duration.ofSeconds(retryBackoffSeconds)))
-                .onErrorResume(e -> {
-                    log.error("Failed to get embedding from OpenAI-compatible API", e);
-                    return Mono.empty();
-                });
+        return Mono.defer(() -> {
+            EmbeddingCallEvent event = EmbeddingCallEvent.start(1, text.length());
+            return webClient.post()
+                    .uri(properties.getEmbedding().getEndpoint())
+                    .header("Authorization", "Bearer " + properties.getEmbedding().getKey())
+                    .header("Content-Type", "application/json")
+                    .bodyValue(requestBody)
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .doOnSuccess(s -> log.info("Embedding received successfully"))
+                    .doOnNext(event::received)
+                    .map(this::extractOpenAIEmbedding)
+                    .retryWhen(Retry.backoff(maxRetryAttempts, Duration.ofSeconds(retryBackoffSeconds)))
+                    .doOnNext(vector -> event.succeeded())
+                    .onErrorResume(e -> {
+                        log.error("Failed to get embedding from OpenAI-compatible API", e);
+                        return Mono.empty();
+                    })
+                    .doFinally(signal -> event.complete());
+        });
     }
 
     @Override
@@ -140,23 +175,31 @@ public class RemoteModelAdapter implements ModelAdapter {
                 "input", texts,
                 "model", properties.getEmbedding().getModel());
 
-        return webClient.post()
-                .uri(properties.getEmbedding().getEndpoint())
-                .header("Authorization", "Bearer " + properties.getEmbedding().getKey())
-                .header("Content-Type", "application/json")
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(String.class)
-                .doOnSuccess(s -> log.info("Batch embeddings received successfully"))
-                .map(this::extractOpenAIEmbeddings)
-                .retryWhen(Retry.backoff(maxRetryAttempts, Duration.ofSeconds(retryBackoffSeconds)))
-                .onErrorResume(e -> {
-                    log.error("Failed to get batch embeddings from OpenAI-compatible API", e);
-                    return Mono.empty();
-                });
+        return Mono.defer(() -> {
+            EmbeddingCallEvent event = EmbeddingCallEvent.start(texts.size(),
+                    texts.stream().mapToLong(String::length).sum());
+            return webClient.post()
+                    .uri(properties.getEmbedding().getEndpoint())
+                    .header("Authorization", "Bearer " + properties.getEmbedding().getKey())
+                    .header("Content-Type", "application/json")
+                    .bodyValue(requestBody)
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .doOnSuccess(s -> log.info("Batch embeddings received successfully"))
+                    .doOnNext(event::received)
+                    .map(this::extractOpenAIEmbeddings)
+                    .retryWhen(Retry.backoff(maxRetryAttempts, Duration.ofSeconds(retryBackoffSeconds)))
+                    .doOnNext(vectors -> event.succeeded())
+                    .onErrorResume(e -> {
+                        log.error("Failed to get batch embeddings from OpenAI-compatible API", e);
+                        return Mono.empty();
+                    })
+                    .doFinally(signal -> event.complete());
+        });
     }
 
-    private String buildUserPrompt(String query, List<FaqDoc> docs) {
+    // package-private, like the parsers below, so benchmarks/ can measure them
+    String buildUserPrompt(String query, List<FaqDoc> docs) {
         StringBuilder sb = new StringBuilder();
         sb.append("--- KNOWLEDGE BASE ---\n");
         if (docs != null && !docs.isEmpty()) {
@@ -172,7 +215,7 @@ public class RemoteModelAdapter implements ModelAdapter {
         return sb.toString();
     }
 
-    private List<Map<String, String>> buildMessageHistory(String systemPrompt, String userPrompt,
+    List<Map<String, String>> buildMessageHistory(String systemPrompt, String userPrompt,
             List<String> history) {
         List<Map<String, String>> messages = new ArrayList<>();
         messages.add(Map.of("role", "system", "content", systemPrompt));
@@ -200,7 +243,7 @@ public class RemoteModelAdapter implements ModelAdapter {
         }
     }
 
-    private float[] extractOpenAIEmbedding(String jsonResponse) {
+    float[] extractOpenAIEmbedding(String jsonResponse) {
         try {
             JsonNode root = objectMapper.readTree(jsonResponse);
             JsonNode embeddingNode = root.path("data").get(0).path("embedding");
@@ -219,7 +262,7 @@ public class RemoteModelAdapter implements ModelAdapter {
         }
     }
 
-    private List<float[]> extractOpenAIEmbeddings(String jsonResponse) {
+    List<float[]> extractOpenAIEmbeddings(String jsonResponse) {
         try {
             JsonNode root = objectMapper.readTree(jsonResponse);
             JsonNode dataNode = root.path("data");
@@ -247,7 +290,7 @@ public class RemoteModelAdapter implements ModelAdapter {
         }
     }
 
-    private String extractTextFromStreamChunk(String chunk) {
+    String extractTextFromStreamChunk(String chunk) {
         log.debug("Raw chunk received: '{}'", chunk);
         try {
             // Handle [DONE] signal
@@ -0,0 +1,39 @@
+package com.aiassistant.cache;
+
+import java.nio.ByteBuffer;
+
+// Turns cached values into bytes for the shared tier and back.
+public interface CacheCodec<V> {
+
+    byte[] encode(V value);
+
+    V decode(byte[] bytes);
+
+    CacheCodec<float[]> FLOAT_ARRAY = new CacheCodec<>() {
+        @Override
+        public byte[] encode(float[] value) {
+            ByteBuffer buffer = ByteBuffer.allocate(value.length * Float.BYTES);
+            buffer.asFloatBuffer().put(value);
+            return buffer.array();
+        }
+
+        @Override
+        public float[] decode(byte[] bytes) {
+            float[] value = new float[bytes.length / Float.BYTES];
+            ByteBuffer.wrap(bytes).asFloatBuffer().get(value);
+            return value;
+        }
+    };
+
+    CacheCodec<Long> LONG = new CacheCodec<>() {
+        @Override
+        public byte[] encode(Long value) {
+            return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+        }
+
+        @Override
+        public Long decode(byte[] bytes) {
+            return ByteBuffer.wrap(bytes).getLong();
+        }
+    };
+}
@@ -0,0 +1,89 @@
+package com.aiassistant.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Entry point to the two-level caches: hands out {@link TwoLevelCache}s over the configured
+ * {@link SharedCacheStore} and relays invalidations between nodes over one pub/sub channel.
+ */
+@Component
+public class CacheTier {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheTier.class);
+
+    static final String KEY_PREFIX = "docuchat:";
+    private static final String CHANNEL = KEY_PREFIX + "cache-invalidation";
+
+    // lets a node skip its own invalidations, it already applied them locally
+    private final String nodeId = UUID.randomUUID().toString();
+    private final SharedCacheStore store;
+    private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+
+    public CacheTier(SharedCacheStore store) {
+        this.store = store;
+        store.subscribe(CHANNEL, this::onMessage);
+    }
+
+    public SharedCacheStore store() {
+        return store;
+    }
+
+    public <V> TwoLevelCache<V> create(String name, Caffeine<Object, Object> local, Duration sharedTtl,
+            CacheCodec<V> codec) {
+        TwoLevelCache<V> cache = new TwoLevelCache<>(name, local.build(), sharedTtl, codec, this);
+        onInvalidation(name, cache::invalidateLocal);
+        return cache;
+    }
+
+    /**
+     * Registers what to drop locally when another node invalidates a key of the named cache.
+     * The key is "*" when the whole cache was invalidated.
+     */
+    public void onInvalidation(String name, Consumer<String> handler) {
+        handlers.put(name, handler);
+    }
+
+    public void publishInvalidation(String name, String key) {
+        try {
+            store.publish(CHANNEL, nodeId + "|" + name + "|" + key);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish invalidation of {}:{}, other nodes keep it until it expires", name, key, e);
+        }
+    }
+
+    // current generation of a cache, bumping it orphans every shared key written under the old one
+    long generation(String name) {
+        try {
+            byte[] value = store.get(KEY_PREFIX + name + ":generation");
+            return value != null ? Long.parseLong(new String(value, StandardCharsets.US_ASCII)) : 0;
+        } catch (RuntimeException e) {
+            log.warn("Could not read generation of cache {}", name, e);
+            return 0;
+        }
+    }
+
+    long nextGeneration(String name) {
+        return store.increment(KEY_PREFIX + name + ":generation");
+    }
+
+    private void onMessage(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length < 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        Consumer<String> handler = handlers.get(parts[1]);
+        if (handler != null) {
+            handler.accept(parts[2]);
+        }
+    }
+}
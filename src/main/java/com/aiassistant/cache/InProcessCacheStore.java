@@ -0,0 +1,133 @@
+package com.aiassistant.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Shared cache store that lives in this JVM. Used when only one node runs, and as a stand-in for
+ * Redis in tests: same semantics, including ttls and pub/sub delivery to local subscribers.
+ * Entries expire on their own like Redis keys, and past {@code maxEntries} the least used ones are
+ * dropped, like Redis with an LRU maxmemory policy. Counters without a ttl (generations) are never dropped.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache.shared.type", havingValue = "in-process", matchIfMissing = true)
+public class InProcessCacheStore implements SharedCacheStore {
+
+    private final Map<String, Entry> entries;
+    private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+
+    public InProcessCacheStore(@Value("${app.cache.shared.in-process-max-entries:100000}") long maxEntries) {
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxEntries)
+                // dropping a generation would restart it and bring back entries written under old numbers
+                .<String, Entry>weigher((key, entry) -> entry.ttl() == null ? 0 : 1)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.ttl() == null ? Long.MAX_VALUE : entry.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build()
+                .asMap();
+    }
+
+    @Override
+    public byte[] get(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.value : null;
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        entries.put(key, new Entry(value, null, ttl));
+    }
+
+    @Override
+    public void delete(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public Map<String, byte[]> getAllFields(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.fields != null ? Map.copyOf(entry.fields) : Map.of();
+    }
+
+    @Override
+    public byte[] getField(String key, String field) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.fields != null ? entry.fields.get(field) : null;
+    }
+
+    @Override
+    public void putField(String key, String field, byte[] value, Duration ttl) {
+        entries.compute(key, (k, old) -> {
+            Map<String, byte[]> fields = old != null && old.fields != null
+                    ? old.fields
+                    : new ConcurrentHashMap<>();
+            fields.put(field, value);
+            return new Entry(null, fields, ttl);
+        });
+    }
+
+    @Override
+    public long increment(String key) {
+        Entry updated = entries.compute(key, (k, old) -> {
+            long current = old != null && old.value != null
+                    ? Long.parseLong(new String(old.value, StandardCharsets.US_ASCII))
+                    : 0;
+            return new Entry(Long.toString(current + 1).getBytes(StandardCharsets.US_ASCII), null, null);
+        });
+        return Long.parseLong(new String(updated.value, StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public long incrementField(String key, String field, Duration ttl) {
+        long[] updated = new long[1];
+        entries.compute(key, (k, old) -> {
+            Map<String, byte[]> fields = old != null && old.fields != null
+                    ? old.fields
+                    : new ConcurrentHashMap<>();
+            byte[] current = fields.get(field);
+            updated[0] = (current != null ? Long.parseLong(new String(current, StandardCharsets.US_ASCII)) : 0) + 1;
+            fields.put(field, Long.toString(updated[0]).getBytes(StandardCharsets.US_ASCII));
+            return new Entry(null, fields, ttl);
+        });
+        return updated[0];
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        subscribers.getOrDefault(channel, List.of()).forEach(listener -> listener.accept(message));
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        subscribers.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    // no ttl means the entry stays until it is deleted
+    private record Entry(byte[] value, Map<String, byte[]> fields, Duration ttl) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.aiassistant.cache;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Shared cache store on Redis (or anything speaking its protocol), configured with the usual
+ * spring.data.redis.* properties. Values are stored as raw bytes, invalidations go over pub/sub.
+ * spring-boot-starter-data-redis is an optional dependency: without spring-data-redis on the classpath
+ * there is no Redis store and only the in-process one can be used.
+ */
+@Component
+@ConditionalOnClass(RedisConnectionFactory.class)
+@ConditionalOnProperty(name = "app.cache.shared.type", havingValue = "redis")
+public class RedisCacheStore implements SharedCacheStore {
+
+    private final RedisTemplate<String, byte[]> template;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    public RedisCacheStore(RedisConnectionFactory connectionFactory) {
+        this.template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setHashKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.setHashValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+
+        this.listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @Override
+    public byte[] get(String key) {
+        return template.opsForValue().get(key);
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        template.opsForValue().set(key, value, ttl);
+    }
+
+    @Override
+    public void delete(String key) {
+        template.delete(key);
+    }
+
+    @Override
+    public Map<String, byte[]> getAllFields(String key) {
+        return template.<String, byte[]>opsForHash().entries(key);
+    }
+
+    @Override
+    public byte[] getField(String key, String field) {
+        return template.<String, byte[]>opsForHash().get(key, field);
+    }
+
+    @Override
+    public void putField(String key, String field, byte[] value, Duration ttl) {
+        template.<String, byte[]>opsForHash().put(key, field, value);
+        template.expire(key, ttl);
+    }
+
+    @Override
+    public long increment(String key) {
+        Long value = template.opsForValue().increment(key);
+        return value != null ? value : 0;
+    }
+
+    @Override
+    public long incrementField(String key, String field, Duration ttl) {
+        Long value = template.<String, byte[]>opsForHash().increment(key, field, 1);
+        template.expire(key, ttl);
+        return value != null ? value : 0;
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        template.convertAndSend(channel, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        listenerContainer.addMessageListener(
+                (message, pattern) -> listener.accept(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(channel));
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        listenerContainer.destroy();
+    }
+}
@@ -0,0 +1,37 @@
+package com.aiassistant.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Cache tier shared by every backend node, sitting behind the per-node Caffeine caches.
+ * Implementations speak to Redis or keep everything in process for single-node runs and tests.
+ */
+public interface SharedCacheStore {
+
+    byte[] get(String key);
+
+    void put(String key, byte[] value, Duration ttl);
+
+    void delete(String key);
+
+    // all fields of a hash, empty if the key doesn't exist
+    Map<String, byte[]> getAllFields(String key);
+
+    // one field of a hash, null if it or the key doesn't exist
+    byte[] getField(String key, String field);
+
+    // sets one hash field and (re)starts the ttl of the whole hash
+    void putField(String key, String field, byte[] value, Duration ttl);
+
+    // atomically adds one to a counter and returns the new value
+    long increment(String key);
+
+    // atomically adds one to a counter kept in a hash field, (re)starts the ttl of the hash and returns the new value
+    long incrementField(String key, String field, Duration ttl);
+
+    void publish(String channel, String message);
+
+    void subscribe(String channel, Consumer<String> listener);
+}
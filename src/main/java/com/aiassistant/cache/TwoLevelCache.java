@@ -0,0 +1,146 @@
+package com.aiassistant.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Caffeine cache on this node (L1) in front of the shared store (L2).
+ * Reads fall through to L2 and fill L1, writes go to both, and invalidations also reach the L1 of
+ * every other node. Keys are hashed before use, so secrets such as admin keys never leave the JVM.
+ * L2 failures are logged and treated as misses, the cache then just behaves like a local one.
+ */
+public class TwoLevelCache<V> {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    private final String name;
+    private final Cache<String, V> local;
+    private final Duration sharedTtl;
+    private final CacheCodec<V> codec;
+    private final CacheTier tier;
+    private volatile long generation;
+    // lookups that missed L1 and went to the shared store
+    private final LongAdder sharedHits = new LongAdder();
+    private final LongAdder sharedMisses = new LongAdder();
+
+    TwoLevelCache(String name, Cache<String, V> local, Duration sharedTtl, CacheCodec<V> codec, CacheTier tier) {
+        this.name = name;
+        this.local = local;
+        this.sharedTtl = sharedTtl;
+        this.codec = codec;
+        this.tier = tier;
+        this.generation = tier.generation(name);
+    }
+
+    // returns null on a miss in both levels
+    public V get(String key) {
+        String id = digest(key);
+        V value = local.getIfPresent(id);
+        if (value != null) {
+            return value;
+        }
+        try {
+            byte[] bytes = tier.store().get(sharedKey(id));
+            if (bytes != null) {
+                value = codec.decode(bytes);
+                local.put(id, value);
+                sharedHits.increment();
+            } else {
+                sharedMisses.increment();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Shared cache read failed for {}", name, e);
+            sharedMisses.increment();
+        }
+        return value;
+    }
+
+    public void put(String key, V value) {
+        String id = digest(key);
+        local.put(id, value);
+        try {
+            tier.store().put(sharedKey(id), codec.encode(value), sharedTtl);
+        } catch (RuntimeException e) {
+            log.warn("Shared cache write failed for {}", name, e);
+        }
+    }
+
+    public void invalidate(String key) {
+        String id = digest(key);
+        local.invalidate(id);
+        try {
+            tier.store().delete(sharedKey(id));
+        } catch (RuntimeException e) {
+            log.warn("Shared cache delete failed for {}", name, e);
+        }
+        tier.publishInvalidation(name, id);
+    }
+
+    public void invalidateAll() {
+        local.invalidateAll();
+        try {
+            generation = tier.nextGeneration(name);
+        } catch (RuntimeException e) {
+            log.warn("Could not clear shared cache {}", name, e);
+        }
+        tier.publishInvalidation(name, "*");
+    }
+
+    // this node's entries only, for when another node has already moved the shared copy on
+    public void invalidateAllLocal() {
+        invalidateLocal("*");
+    }
+
+    public String name() {
+        return name;
+    }
+
+    // L1 only, empty unless the Caffeine builder was given recordStats()
+    public CacheStats stats() {
+        return local.stats();
+    }
+
+    public long estimatedSize() {
+        return local.estimatedSize();
+    }
+
+    public long sharedHitCount() {
+        return sharedHits.sum();
+    }
+
+    public long sharedMissCount() {
+        return sharedMisses.sum();
+    }
+
+    // called for invalidations made on other nodes
+    void invalidateLocal(String id) {
+        if ("*".equals(id)) {
+            generation = tier.generation(name);
+            local.invalidateAll();
+        } else {
+            local.invalidate(id);
+        }
+    }
+
+    private String sharedKey(String id) {
+        return CacheTier.KEY_PREFIX + name + ":" + generation + ":" + id;
+    }
+
+    private static String digest(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
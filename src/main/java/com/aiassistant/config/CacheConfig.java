@@ -1,34 +1,47 @@
 package com.aiassistant.config;
 
+import com.aiassistant.cache.CacheCodec;
+import com.aiassistant.cache.CacheTier;
+import com.aiassistant.cache.TwoLevelCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Configuration for caching query embeddings to reduce API calls.
+ * Configuration for caching query embeddings and admin keys to reduce API calls and DB load.
  * Caching embeddings can reduce latency by 60-90% for repeated queries.
+ * Each cache is local to the node and backed by the shared tier, so a new node starts warm.
  */
 @Configuration
-@EnableCaching
 public class CacheConfig {
 
+    @Value("${app.cache.shared.embedding-ttl-hours:24}")
+    private long embeddingTtlHours;
+
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("queryEmbeddings");
-        cacheManager.setCaffeine(caffeineCacheBuilder());
-        cacheManager.setAsyncCacheMode(true); // Enable async mode for reactive (Mono/Flux) support
-        return cacheManager;
+    public TwoLevelCache<float[]> queryEmbeddingCache(CacheTier cacheTier) {
+        return cacheTier.create("queryEmbeddings",
+                Caffeine.newBuilder()
+                        .expireAfterWrite(1, TimeUnit.HOURS) // Cache for 1 hour
+                        .maximumSize(1000) // Max 1000 cached queries
+                        .recordStats(), // Enable stats for monitoring
+                Duration.ofHours(embeddingTtlHours),
+                CacheCodec.FLOAT_ARRAY);
     }
 
-    private Caffeine<Object, Object> caffeineCacheBuilder() {
-        return Caffeine.newBuilder()
-                .expireAfterWrite(1, TimeUnit.HOURS) // Cache for 1 hour
-                .maximumSize(1000) // Max 1000 cached queries
-                .recordStats(); // Enable stats for monitoring
+    @Bean
+    public TwoLevelCache<Long> adminKeyCache(CacheTier cacheTier) {
+        // Cache valid admin keys for 5 minutes to reduce DB load
+        return cacheTier.create("adminKeys",
+                Caffeine.newBuilder()
+                        .expireAfterWrite(5, TimeUnit.MINUTES)
+                        .maximumSize(1000)
+                        .recordStats(),
+                Duration.ofMinutes(5),
+                CacheCodec.LONG);
     }
 }
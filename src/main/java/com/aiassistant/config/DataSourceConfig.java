@@ -0,0 +1,96 @@
+package com.aiassistant.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Connection pools, one per kind of traffic, so a big upload cannot starve chat requests of connections.
+ * <ul>
+ * <li>"chat": the default, request-time lookups and vector search.</li>
+ * <li>"bulk": ingestion, indexing and purges, marked with {@link DataSourceWorkload}.</li>
+ * <li>"replica": read-only transactions, when {@code app.datasource.replica.enabled}. While the replica is
+ * unreachable or more than {@code max-lag-seconds} behind, reads go back to the other pools.</li>
+ * </ul>
+ * Every pool takes the shared settings under {@code spring.datasource.hikari} and then its own overrides
+ * under {@code app.datasource.<pool>.hikari}. Each is a separately named Hikari pool, so its metrics
+ * are reported under its own name.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private final Environment environment;
+
+    public DataSourceConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Bean
+    public HikariDataSource chatDataSource(DataSourceProperties properties) {
+        return pool("chat", properties.initializeDataSourceBuilder().type(HikariDataSource.class).build());
+    }
+
+    @Bean
+    public HikariDataSource bulkDataSource(DataSourceProperties properties) {
+        return pool("bulk", properties.initializeDataSourceBuilder().type(HikariDataSource.class).build());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:}") String username,
+            @Value("${app.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username.isEmpty() ? properties.determineUsername() : username)
+                .password(password.isEmpty() ? properties.determinePassword() : password)
+                .build();
+        dataSource.setReadOnly(true);
+        return pool("replica", dataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+            @Value("${app.datasource.replica.max-lag-seconds:10}") double maxLagSeconds) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicaDataSource, maxLagSeconds);
+        // decide before the first request instead of waiting for the schedule
+        monitor.check();
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("chatDataSource") HikariDataSource chatDataSource,
+            @Qualifier("bulkDataSource") HikariDataSource bulkDataSource,
+            @Qualifier("replicaDataSource") ObjectProvider<HikariDataSource> replicaDataSource,
+            ObjectProvider<ReplicaLagMonitor> replicaLagMonitor) {
+        // the lazy proxy holds off fetching a connection until the transaction is set up as read-only or not
+        return new LazyConnectionDataSourceProxy(new WorkloadRoutingDataSource(chatDataSource, bulkDataSource,
+                replicaDataSource.getIfAvailable(), replicaLagMonitor.getIfAvailable()));
+    }
+
+    private HikariDataSource pool(String name, HikariDataSource dataSource) {
+        Binder binder = Binder.get(environment);
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        binder.bind("app.datasource." + name + ".hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,41 @@
+package com.aiassistant.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks database work on the current thread as bulk (ingestion, indexing, purges) so it draws
+ * connections from the "bulk" pool instead of the "chat" pool. Only connections fetched inside the
+ * scope are affected; the mark does not follow work handed to other threads or schedulers.
+ */
+public final class DataSourceWorkload {
+
+    private static final ThreadLocal<Boolean> BULK = new ThreadLocal<>();
+
+    private DataSourceWorkload() {
+    }
+
+    public static boolean isBulk() {
+        return Boolean.TRUE.equals(BULK.get());
+    }
+
+    public static <T> T bulk(Supplier<T> work) {
+        Boolean previous = BULK.get();
+        BULK.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                BULK.remove();
+            } else {
+                BULK.set(previous);
+            }
+        }
+    }
+
+    public static void bulk(Runnable work) {
+        bulk(() -> {
+            work.run();
+            return null;
+        });
+    }
+}
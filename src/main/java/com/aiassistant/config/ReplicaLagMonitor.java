@@ -0,0 +1,69 @@
+package com.aiassistant.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Checks that the read replica answers and how far its replay is behind the primary.
+ * Until the first successful check, and whenever a check fails or the lag is over the limit,
+ * {@link #isUsable()} is false and read-only transactions stay on the primary.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // no lag while every received WAL record is replayed, so an idle primary does not look like lag
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+            END
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double maxLagSeconds;
+    private volatile boolean usable;
+    private volatile double lagSeconds;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, double maxLagSeconds) {
+        this.jdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.jdbcTemplate.setQueryTimeout(2);
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.check-interval-ms:5000}")
+    public void check() {
+        boolean nowUsable;
+        try {
+            Double lag = jdbcTemplate.queryForObject(LAG_QUERY, Double.class);
+            lagSeconds = lag != null ? lag : 0;
+            nowUsable = lagSeconds <= maxLagSeconds;
+            if (!nowUsable && usable) {
+                log.warn("Read replica is {}s behind (limit {}s), sending reads to the primary", lagSeconds,
+                        maxLagSeconds);
+            }
+        } catch (Exception e) {
+            nowUsable = false;
+            if (usable) {
+                log.warn("Read replica check failed, sending reads to the primary", e);
+            }
+        }
+        if (nowUsable && !usable) {
+            log.info("Read replica is available ({}s behind), routing read-only transactions to it", lagSeconds);
+        }
+        usable = nowUsable;
+    }
+}
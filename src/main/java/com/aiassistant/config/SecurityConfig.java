@@ -35,8 +35,12 @@ public class SecurityConfig {
                                 "/api/auth/**",
                                 "/api/clients/**", // Admin API - protected by AdminKeyFilter
                                 "/widget.js", // Widget script - needs to be embeddable
+                                "/loader.js",
+                                "/assets/**", // Fingerprinted widget scripts
                                 "/test-client.html",
-                                "/admin.html")
+                                "/admin.html",
+                                "/actuator/health",
+                                "/actuator/prometheus") // only served on the management listener, see management.server
                         .permitAll()
                         .anyRequest().denyAll())
                 .addFilterBefore(adminKeyFilter, UsernamePasswordAuthenticationFilter.class);
@@ -8,6 +8,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
@@ -17,8 +18,15 @@ public class WebClientConfig {
 
     @Bean
     public WebClient webClient() {
+        // same size as reactor netty's shared pool, but named and with its gauges published
+        // (reactor_netty_connection_provider_*{name="model-api"} on /actuator/prometheus)
+        ConnectionProvider provider = ConnectionProvider.builder("model-api")
+                .maxConnections(500)
+                .metrics(true)
+                .build();
+
         // need longer timeouts cause ai is slow sometimes
-        HttpClient httpClient = HttpClient.create()
+        HttpClient httpClient = HttpClient.create(provider)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10000) // 10s connect
                 .responseTimeout(Duration.ofSeconds(30)) // 30s response
                 .doOnConnected(conn -> conn.addHandlerLast(new ReadTimeoutHandler(30, TimeUnit.SECONDS))
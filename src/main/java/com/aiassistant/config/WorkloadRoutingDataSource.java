@@ -0,0 +1,47 @@
+package com.aiassistant.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Picks the pool for each new connection: read-only transactions go to the replica while it is usable,
+ * {@link DataSourceWorkload#bulk bulk} work to the bulk pool, and everything else to the chat pool.
+ * Must sit behind a LazyConnectionDataSourceProxy so the connection is only fetched once the
+ * transaction's read-only flag is known.
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        CHAT, BULK, REPLICA
+    }
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    // replica and replicaLagMonitor are null when no replica is configured
+    public WorkloadRoutingDataSource(DataSource chat, DataSource bulk, DataSource replica,
+            ReplicaLagMonitor replicaLagMonitor) {
+        this.replicaLagMonitor = replicaLagMonitor;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Target.CHAT, chat);
+        targets.put(Target.BULK, bulk);
+        if (replica != null) {
+            targets.put(Target.REPLICA, replica);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(chat);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicaLagMonitor != null && replicaLagMonitor.isUsable()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Target.REPLICA;
+        }
+        return DataSourceWorkload.isBulk() ? Target.BULK : Target.CHAT;
+    }
+}
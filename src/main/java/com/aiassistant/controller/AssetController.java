@@ -0,0 +1,140 @@
+package com.aiassistant.controller;
+
+import com.aiassistant.service.StaticAssetRegistry;
+import com.aiassistant.service.StaticAssetRegistry.Asset;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+// Serves the embeddable scripts from memory: fingerprinted files forever, the stable urls briefly.
+@RestController
+public class AssetController {
+
+    private static final MediaType JAVASCRIPT = new MediaType("text", "javascript", StandardCharsets.UTF_8);
+
+    private final StaticAssetRegistry registry;
+
+    @Value("${app.assets.bootstrap-max-age-seconds:300}")
+    private long bootstrapMaxAge;
+
+    public AssetController(StaticAssetRegistry registry) {
+        this.registry = registry;
+    }
+
+    @GetMapping("/assets/{filename:.+}")
+    public ResponseEntity<byte[]> versioned(
+            @PathVariable String filename,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Asset asset = registry.findVersioned(filename).orElse(null);
+        if (asset == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String encoding = null;
+        byte[] body = asset.identity();
+        if (asset.brotli() != null && accepts(acceptEncoding, "br")) {
+            encoding = "br";
+            body = asset.brotli();
+        } else if (accepts(acceptEncoding, "gzip")) {
+            encoding = "gzip";
+            body = asset.gzip();
+        }
+
+        // one etag per encoding, the bytes differ
+        String etag = "\"" + asset.hash() + (encoding != null ? "-" + encoding : "") + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag).cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT_ENCODING).build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(JAVASCRIPT)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (encoding != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+        return response.body(body);
+    }
+
+    // stable urls customers embed, short lived so a deploy is picked up within minutes
+    @GetMapping({ "/widget.js", "/loader.js" })
+    public ResponseEntity<byte[]> bootstrap(
+            HttpServletRequest request,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String filename = request.getRequestURI().substring(request.getRequestURI().lastIndexOf('/') + 1);
+        Asset asset = registry.findCurrent(filename).orElse(null);
+        if (asset == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = "\"boot-" + asset.hash() + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(bootstrapMaxAge)).cachePublic();
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(JAVASCRIPT)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(asset.bootstrap());
+    }
+
+    // If-None-Match is "*" or a list of etags; it compares weakly, so W/"x" matches "x"
+    private boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // true if the coding is listed in Accept-Encoding without q=0
+    private boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (!tokens[0].trim().equalsIgnoreCase(coding) && !tokens[0].trim().equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        if (Double.parseDouble(param.substring(2)) <= 0) {
+                            return false;
+                        }
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -1,13 +1,22 @@
 package com.aiassistant.controller;
 
 import com.aiassistant.dto.ApiResponse;
+import com.aiassistant.dto.BulkUploadResponse;
 import com.aiassistant.dto.ClientSettingsDto;
 import com.aiassistant.dto.CreateClientResponse;
+import com.aiassistant.dto.FaqImportResponse;
+import com.aiassistant.dto.FaqUploadRequest;
+import com.aiassistant.dto.IngestionStatus;
+import com.aiassistant.dto.VectorIndexStatus;
 import com.aiassistant.model.Client;
+import com.aiassistant.service.BulkUploadService;
 import com.aiassistant.service.ClientService;
 import com.aiassistant.service.EmbeddingService;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import com.aiassistant.service.FaqImportException;
+import com.aiassistant.service.FaqImportService;
+import com.aiassistant.service.IngestionService;
+import com.aiassistant.service.VectorIndexManager;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,11 +26,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.util.stream.Collectors;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 import reactor.core.publisher.Mono;
 
@@ -33,13 +42,23 @@ public class ClientController {
     private static final Logger logger = LoggerFactory.getLogger(ClientController.class);
     private final EmbeddingService embeddingService;
     private final ClientService clientService;
+    private final FaqImportService faqImportService;
+    private final IngestionService ingestionService;
+    private final BulkUploadService bulkUploadService;
+    private final VectorIndexManager vectorIndexManager;
 
     @Value("${app.admin-key}")
     private String systemAdminKey;
 
-    public ClientController(EmbeddingService embeddingService, ClientService clientService) {
+    public ClientController(EmbeddingService embeddingService, ClientService clientService,
+            FaqImportService faqImportService, IngestionService ingestionService,
+            BulkUploadService bulkUploadService, VectorIndexManager vectorIndexManager) {
         this.embeddingService = embeddingService;
         this.clientService = clientService;
+        this.faqImportService = faqImportService;
+        this.ingestionService = ingestionService;
+        this.bulkUploadService = bulkUploadService;
+        this.vectorIndexManager = vectorIndexManager;
     }
 
     @PostMapping("/create")
@@ -53,7 +72,7 @@ public class ClientController {
     }
 
     @PostMapping(value = "/{clientId}/documents", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<ApiResponse> uploadDocument(
+    public ResponseEntity<?> uploadDocument(
             @PathVariable Long clientId,
             @RequestParam("file") MultipartFile file) {
 
@@ -62,37 +81,96 @@ public class ClientController {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body(new ApiResponse("File is empty"));
         }
+        // before spooling, so a wrong id doesn't cost a copy of the upload
+        if (!clientService.exists(clientId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiResponse("Client not found with ID: " + clientId));
+        }
 
+        Path spooled = null;
         try {
-            String content;
-            String filename = file.getOriginalFilename();
-
-            if (filename != null && filename.toLowerCase().endsWith(".pdf")) {
-                logger.info("Detected PDF file. Extracting text...");
-                try (PDDocument document = PDDocument.load(file.getInputStream())) {
-                    PDFTextStripper stripper = new PDFTextStripper();
-                    content = stripper.getText(document);
-                }
-            } else {
-                // Default to text parsing
-                content = new BufferedReader(
-                        new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))
-                        .lines()
-                        .collect(Collectors.joining("\n"));
-            }
-
-            // Sanitize content to remove null bytes which Postgres hates
-            content = content.replace("\u0000", "");
-
-            logger.info("File parsed successfully. Size: {} chars", content.length());
-            clientService.saveDocument(clientId, filename, content);
+            // spool to disk, parsing and indexing happen in the background
+            spooled = Files.createTempFile("docuchat-upload-", ".tmp");
+            file.transferTo(spooled);
 
-            return ResponseEntity.ok(new ApiResponse("Document uploaded successfully. Please trigger indexing next."));
+            IngestionStatus status = ingestionService.submit(clientId, file.getOriginalFilename(), spooled);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
 
         } catch (IOException e) {
             logger.error("Failed to read file", e);
+            // submit owns the spooled file once called, this is only reached before that
+            deleteQuietly(spooled);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse("Error processing file: " + e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error queueing upload for client ID: {}", clientId, e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ApiResponse(e.getMessage()));
+        }
+    }
+
+    // many files at once, zip archives are unpacked entry by entry
+    @PostMapping(value = "/{clientId}/documents/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BulkUploadResponse> uploadDocuments(
+            @PathVariable Long clientId,
+            @RequestParam("files") List<MultipartFile> files) {
+        logger.info("Received bulk upload of {} file(s) for Client ID: {}", files.size(), clientId);
+        try {
+            BulkUploadResponse response = bulkUploadService.upload(clientId, files);
+            HttpStatus status = response.getAccepted() > 0 ? HttpStatus.ACCEPTED : HttpStatus.BAD_REQUEST;
+            return ResponseEntity.status(status).body(response);
+        } catch (Exception e) {
+            logger.error("Error processing bulk upload for client ID: {}", clientId, e);
+            BulkUploadResponse response = new BulkUploadResponse();
+            response.setMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @GetMapping("/{clientId}/ingestions/{ingestionId}")
+    public ResponseEntity<IngestionStatus> getIngestionStatus(
+            @PathVariable Long clientId,
+            @PathVariable String ingestionId) {
+        return ingestionService.findStatus(clientId, ingestionId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping(value = "/{clientId}/faqs", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<FaqImportResponse> importFaqs(
+            @PathVariable Long clientId,
+            @RequestBody FaqUploadRequest request) {
+        logger.info("Received bulk FAQ import for Client ID: {}", clientId);
+        try {
+            return ResponseEntity.ok(faqImportService.importEntries(clientId, request.getEntries()));
+        } catch (FaqImportException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getPartial());
+        } catch (Exception e) {
+            logger.error("Error importing FAQs for client ID: {}", clientId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new FaqImportResponse(0, 0, e.getMessage()));
+        }
+    }
+
+    // streaming variant, one {"question": ..., "answer": ...} object per line
+    @PostMapping(value = "/{clientId}/faqs", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<FaqImportResponse> importFaqsNdjson(
+            @PathVariable Long clientId,
+            InputStream body) {
+        logger.info("Received streaming FAQ import for Client ID: {}", clientId);
+        try {
+            return ResponseEntity.ok(faqImportService.importNdjson(clientId, body));
+        } catch (FaqImportException e) {
+            // a bad line part way through is the caller's fault, the lines before it were imported
+            HttpStatus status = e.getCause() instanceof RuntimeJsonMappingException ? HttpStatus.BAD_REQUEST
+                    : HttpStatus.INTERNAL_SERVER_ERROR;
+            return ResponseEntity.status(status).body(e.getPartial());
+        } catch (IOException | RuntimeJsonMappingException e) {
+            logger.error("Failed to read FAQ import stream", e);
+            return ResponseEntity.badRequest().body(new FaqImportResponse(0, 0, "Invalid NDJSON: " + e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error importing FAQs for client ID: {}", clientId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new FaqImportResponse(0, 0, e.getMessage()));
         }
     }
 
@@ -107,8 +185,12 @@ public class ClientController {
     public ResponseEntity<ApiResponse> clearClientData(@PathVariable Long clientId) {
         logger.info("Clearing all data for Client ID: {}", clientId);
         try {
-            long count = clientService.clearAllData(clientId);
-            return ResponseEntity.ok(new ApiResponse(String.format("Successfully deleted %d document(s).", count)));
+            if (!clientService.clearAllData(clientId)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new ApiResponse("Deletion is already in progress for client " + clientId));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new ApiResponse("Deletion of all documents started for client " + clientId));
         } catch (Exception e) {
             logger.error("Error clearing data for client ID: {}", clientId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse(e.getMessage()));
@@ -132,6 +214,32 @@ public class ClientController {
         }
     }
 
+    @GetMapping("/admin/vector-index")
+    public ResponseEntity<VectorIndexStatus> getVectorIndexStatus(@RequestHeader("X-Admin-Key") String adminKey) {
+        if (!systemAdminKey.trim().equals(adminKey.trim())) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(vectorIndexManager.status());
+    }
+
+    @PostMapping("/admin/vector-index/rebuild")
+    public ResponseEntity<ApiResponse> rebuildVectorIndex(@RequestHeader("X-Admin-Key") String adminKey) {
+        if (!systemAdminKey.trim().equals(adminKey.trim())) {
+            logger.warn("Unauthorized attempt to rebuild the vector index.");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ApiResponse("Invalid System Admin Key"));
+        }
+        try {
+            if (!vectorIndexManager.requestRebuild()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new ApiResponse("Index management is disabled or a rebuild is already running."));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new ApiResponse("Vector index rebuild started."));
+        } catch (Exception e) {
+            logger.error("Error starting vector index rebuild", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse(e.getMessage()));
+        }
+    }
+
     @PutMapping("/{clientId}/settings")
     public ResponseEntity<ApiResponse> updateClientSettings(
             @PathVariable Long clientId,
@@ -145,4 +253,15 @@ public class ClientController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse(e.getMessage()));
         }
     }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete spooled upload {}", file, e);
+        }
+    }
 }
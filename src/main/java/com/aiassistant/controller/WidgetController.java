@@ -3,14 +3,22 @@ package com.aiassistant.controller;
 import com.aiassistant.dto.AnswerDTO;
 import com.aiassistant.dto.ClientSettingsDto;
 import com.aiassistant.dto.WidgetRequest;
+import com.aiassistant.metrics.ChatMetrics;
+import com.aiassistant.metrics.ChatMetrics.Stage;
 import com.aiassistant.model.Client;
 import com.aiassistant.service.ChatService;
 import com.aiassistant.service.ClientService;
+import com.aiassistant.service.RateLimitService;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,20 +29,107 @@ public class WidgetController {
 
     private final ChatService chatService;
     private final ClientService clientService;
+    private final RateLimitService rateLimitService;
 
-    public WidgetController(ChatService chatService, ClientService clientService) {
+    public WidgetController(ChatService chatService, ClientService clientService,
+            RateLimitService rateLimitService) {
         this.chatService = chatService;
         this.clientService = clientService;
+        this.rateLimitService = rateLimitService;
     }
 
     @PostMapping(value = "/stream-chat", produces = MediaType.TEXT_PLAIN_VALUE)
-    public Flux<String> streamChat(@RequestBody WidgetRequest request) {
+    public DeferredResult<ResponseEntity<Flux<String>>> streamChat(@RequestBody WidgetRequest request) {
+        DeferredResult<ResponseEntity<Flux<String>>> result = new DeferredResult<>();
+        RateLimitService.Admission admission = rateLimitService.tryAdmit(request.getApiKey());
+        if (admission.isUnknownKey()) {
+            // answered like the chat service would, without looking the key up again
+            result.setResult(ResponseEntity.ok(Flux.just("data: Error: " + admission.getReason() + "\n\n")));
+            return result;
+        }
+        if (!admission.isGranted()) {
+            result.setResult(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(admission.getRetryAfterSeconds()))
+                    .body(Flux.just("data: Error: " + admission.getReason() + "\n\n")));
+            return result;
+        }
         try {
-            return chatService.processStreamingMessage(request.getApiKey(), request.getMessage(), request.getHistory())
-                    .map(chunk -> "data: " + chunk + "\n\n"); // manual sse format
+            // the response is committed once everything up to the model call is done, so its timings can go
+            // in the headers; the request thread is handed back in the meantime
+            Disposable preparing = chatService.prepare(request.getApiKey(), request.getMessage(),
+                    request.getHistory())
+                    .subscribe(chat -> {
+                        if (!result.setResult(respond(chat, request, admission))) {
+                            admission.release(); // timed out or the caller went away
+                        }
+                    }, e -> {
+                        admission.release();
+                        result.setErrorResult(e);
+                    });
+            // gave up before the answer started, e.g. the async timeout or the caller closed the connection
+            Runnable abandon = () -> {
+                preparing.dispose();
+                admission.release();
+            };
+            result.onTimeout(abandon);
+            result.onError(e -> abandon.run());
         } catch (SecurityException e) {
-            return Flux.just("data: Error: " + e.getMessage() + "\n\n");
+            admission.release();
+            result.setResult(ResponseEntity.ok(Flux.just("data: Error: " + e.getMessage() + "\n\n")));
+        }
+        return result;
+    }
+
+    private ResponseEntity<Flux<String>> respond(ChatService.PreparedChat chat, WidgetRequest request,
+            RateLimitService.Admission admission) {
+        Flux<String> stream = chat.answer()
+                .map(chunk -> "data: " + chunk + "\n\n"); // manual sse format
+        if (Boolean.TRUE.equals(request.getDebug()) || Boolean.TRUE.equals(chat.client().getStreamTiming())) {
+            stream = stream.concatWith(Mono.fromSupplier(() -> timingEvent(chat.timer())));
         }
+        // frees the stream slot on complete, error or cancel
+        stream = stream.doFinally(signal -> admission.release());
+        return ResponseEntity.ok()
+                .header("Server-Timing", serverTiming(chat.timer()))
+                .header("Timing-Allow-Origin", "*") // lets the embedding page read it from the Resource Timing API
+                .body(stream);
+    }
+
+    // e.g. "auth;dur=1.2, faq;dur=0.1, embed;dur=84.9, cache;dur=0.3, retrieve;dur=12.0", stages that ran only
+    private static String serverTiming(ChatMetrics.RequestTimer timer) {
+        StringBuilder header = new StringBuilder(96);
+        appendTiming(header, "auth", timer.stageNanos(Stage.CLIENT_LOOKUP));
+        appendTiming(header, "faq", timer.stageNanos(Stage.FAQ_LOOKUP));
+        appendTiming(header, "embed", timer.stageNanos(Stage.EMBEDDING));
+        appendTiming(header, "cache", timer.stageNanos(Stage.CACHE_LOOKUP));
+        appendTiming(header, "retrieve", timer.stageNanos(Stage.RETRIEVAL));
+        return header.toString();
+    }
+
+    private static void appendTiming(StringBuilder header, String name, long nanos) {
+        if (nanos == 0) {
+            return;
+        }
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=");
+        appendMillis(header, nanos);
+    }
+
+    // sent after the answer: time to first token and from the first to the last token, in ms
+    private static String timingEvent(ChatMetrics.RequestTimer timer) {
+        StringBuilder event = new StringBuilder(80).append("event: timing\ndata: {\"ttftMs\":");
+        appendMillis(event, timer.ttftNanos());
+        event.append(",\"streamMs\":");
+        appendMillis(event, timer.streamNanos());
+        return event.append(",\"tokens\":").append(timer.chunks()).append("}\n\n").toString();
+    }
+
+    // milliseconds with one decimal, without going through String.format
+    private static void appendMillis(StringBuilder sb, long nanos) {
+        long tenths = (nanos + 50_000) / 100_000;
+        sb.append(tenths / 10).append('.').append(tenths % 10);
     }
 
     @GetMapping("/settings")
@@ -0,0 +1,57 @@
+package com.aiassistant.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Per-file results of a multi-file or archive upload.
+public class BulkUploadResponse {
+    private int accepted;
+    private int rejected;
+    private String message;
+    private List<BulkUploadResult> files = new ArrayList<>();
+
+    public BulkUploadResponse() {
+    }
+
+    public void addAccepted(String filename, IngestionStatus ingestion) {
+        files.add(new BulkUploadResult(filename, ingestion, null));
+        accepted++;
+    }
+
+    public void addRejected(String filename, String error) {
+        files.add(new BulkUploadResult(filename, null, error));
+        rejected++;
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(int accepted) {
+        this.accepted = accepted;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public List<BulkUploadResult> getFiles() {
+        return files;
+    }
+
+    public void setFiles(List<BulkUploadResult> files) {
+        this.files = files;
+    }
+}
@@ -0,0 +1,41 @@
+package com.aiassistant.dto;
+
+// Outcome of one file in a bulk upload: either a queued ingestion or the reason it was skipped.
+public class BulkUploadResult {
+    private String filename;
+    private IngestionStatus ingestion;
+    private String error;
+
+    public BulkUploadResult() {
+    }
+
+    public BulkUploadResult(String filename, IngestionStatus ingestion, String error) {
+        this.filename = filename;
+        this.ingestion = ingestion;
+        this.error = error;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public IngestionStatus getIngestion() {
+        return ingestion;
+    }
+
+    public void setIngestion(IngestionStatus ingestion) {
+        this.ingestion = ingestion;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,41 @@
+package com.aiassistant.dto;
+
+// Result of a bulk FAQ import.
+public class FaqImportResponse {
+    private int imported;
+    private int skipped;
+    private String message;
+
+    public FaqImportResponse() {
+    }
+
+    public FaqImportResponse(int imported, int skipped, String message) {
+        this.imported = imported;
+        this.skipped = skipped;
+        this.message = message;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public void setImported(int imported) {
+        this.imported = imported;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(int skipped) {
+        this.skipped = skipped;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
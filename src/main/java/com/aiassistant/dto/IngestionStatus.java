@@ -0,0 +1,101 @@
+package com.aiassistant.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+// Progress of a background document ingestion, returned as the upload handle.
+public class IngestionStatus {
+    private String id;
+    private Long clientId;
+    private String filename;
+    private String state;
+    private long sectionsStored;
+    private long sectionsIndexed;
+    private String error;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private List<BulkUploadResult> files; // entries of an archive upload, null for a single file
+
+    public IngestionStatus() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(Long clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public long getSectionsStored() {
+        return sectionsStored;
+    }
+
+    public void setSectionsStored(long sectionsStored) {
+        this.sectionsStored = sectionsStored;
+    }
+
+    public long getSectionsIndexed() {
+        return sectionsIndexed;
+    }
+
+    public void setSectionsIndexed(long sectionsIndexed) {
+        this.sectionsIndexed = sectionsIndexed;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public List<BulkUploadResult> getFiles() {
+        return files;
+    }
+
+    public void setFiles(List<BulkUploadResult> files) {
+        this.files = files;
+    }
+}
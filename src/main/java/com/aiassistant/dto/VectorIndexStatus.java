@@ -0,0 +1,163 @@
+package com.aiassistant.dto;
+
+import java.time.Instant;
+
+// Managed pgvector index and its search setting, as shown on the admin page.
+public class VectorIndexStatus {
+    private String indexType;
+    private String indexParams;
+    private String quantization;
+    private int rerankCandidates;
+    private long indexBytes;
+    private String status;
+    private long rows;
+    private long rowsAtBuild;
+    private Instant builtAt;
+    private Long buildMs;
+    private String lastError;
+    private String searchSetting;
+    private Integer searchParam;
+    private Double measuredRecall;
+    private double targetRecall;
+    private Long p95SearchMs;
+    private Instant tunedAt;
+
+    public VectorIndexStatus() {
+    }
+
+    public String getIndexType() {
+        return indexType;
+    }
+
+    public void setIndexType(String indexType) {
+        this.indexType = indexType;
+    }
+
+    public String getIndexParams() {
+        return indexParams;
+    }
+
+    public void setIndexParams(String indexParams) {
+        this.indexParams = indexParams;
+    }
+
+    public String getQuantization() {
+        return quantization;
+    }
+
+    public void setQuantization(String quantization) {
+        this.quantization = quantization;
+    }
+
+    public int getRerankCandidates() {
+        return rerankCandidates;
+    }
+
+    public void setRerankCandidates(int rerankCandidates) {
+        this.rerankCandidates = rerankCandidates;
+    }
+
+    public long getIndexBytes() {
+        return indexBytes;
+    }
+
+    public void setIndexBytes(long indexBytes) {
+        this.indexBytes = indexBytes;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public long getRowsAtBuild() {
+        return rowsAtBuild;
+    }
+
+    public void setRowsAtBuild(long rowsAtBuild) {
+        this.rowsAtBuild = rowsAtBuild;
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    public void setBuiltAt(Instant builtAt) {
+        this.builtAt = builtAt;
+    }
+
+    public Long getBuildMs() {
+        return buildMs;
+    }
+
+    public void setBuildMs(Long buildMs) {
+        this.buildMs = buildMs;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getSearchSetting() {
+        return searchSetting;
+    }
+
+    public void setSearchSetting(String searchSetting) {
+        this.searchSetting = searchSetting;
+    }
+
+    public Integer getSearchParam() {
+        return searchParam;
+    }
+
+    public void setSearchParam(Integer searchParam) {
+        this.searchParam = searchParam;
+    }
+
+    public Double getMeasuredRecall() {
+        return measuredRecall;
+    }
+
+    public void setMeasuredRecall(Double measuredRecall) {
+        this.measuredRecall = measuredRecall;
+    }
+
+    public double getTargetRecall() {
+        return targetRecall;
+    }
+
+    public void setTargetRecall(double targetRecall) {
+        this.targetRecall = targetRecall;
+    }
+
+    public Long getP95SearchMs() {
+        return p95SearchMs;
+    }
+
+    public void setP95SearchMs(Long p95SearchMs) {
+        this.p95SearchMs = p95SearchMs;
+    }
+
+    public Instant getTunedAt() {
+        return tunedAt;
+    }
+
+    public void setTunedAt(Instant tunedAt) {
+        this.tunedAt = tunedAt;
+    }
+}
@@ -7,6 +7,7 @@ public class WidgetRequest {
     private String apiKey;
     private String message;
     private List<String> history; // For keeping track of conversation.
+    private Boolean debug; // also send the timing event after the answer
 
     public WidgetRequest() {
     }
@@ -34,4 +35,12 @@ public class WidgetRequest {
     public void setHistory(List<String> history) {
         this.history = history;
     }
+
+    public Boolean getDebug() {
+        return debug;
+    }
+
+    public void setDebug(Boolean debug) {
+        this.debug = debug;
+    }
 }
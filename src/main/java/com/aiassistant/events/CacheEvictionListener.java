@@ -0,0 +1,76 @@
+package com.aiassistant.events;
+
+import com.aiassistant.cache.TwoLevelCache;
+import com.aiassistant.service.CacheService;
+import com.aiassistant.service.FaqQuestionIndex;
+import com.aiassistant.service.RateLimitService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Drops whatever this node cached about the clients a change event is about. The node that published the
+// event also clears the shared cache store, the others only their own copies.
+@Component
+public class CacheEvictionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheEvictionListener.class);
+
+    private final FaqQuestionIndex faqQuestionIndex;
+    private final CacheService cacheService;
+    private final RateLimitService rateLimitService;
+    private final TwoLevelCache<Long> adminKeyCache;
+
+    public CacheEvictionListener(FaqQuestionIndex faqQuestionIndex, CacheService cacheService,
+            RateLimitService rateLimitService, TwoLevelCache<Long> adminKeyCache) {
+        this.faqQuestionIndex = faqQuestionIndex;
+        this.cacheService = cacheService;
+        this.rateLimitService = rateLimitService;
+        this.adminKeyCache = adminKeyCache;
+    }
+
+    @EventListener
+    public void onClientSettingsChanged(ChangeEvent.ClientSettingsChanged event) {
+        log.debug("Evicting client state for {}", event);
+        rateLimitService.reload(event.clientId());
+        if (event.clientId() == null) {
+            // admin keys are cached by value, not by client
+            if (ChangeEventBus.isRelayed()) {
+                adminKeyCache.invalidateAllLocal();
+            } else {
+                adminKeyCache.invalidateAll();
+            }
+        }
+    }
+
+    @EventListener
+    public void onDocsChanged(ChangeEvent.DocsChanged event) {
+        log.debug("Evicting document caches for {}", event);
+        boolean relayed = ChangeEventBus.isRelayed();
+        if (event.clientId() == null) {
+            faqQuestionIndex.invalidateAll();
+            if (relayed) {
+                cacheService.evictAllLocal();
+            } else {
+                cacheService.evictAll();
+            }
+        } else {
+            faqQuestionIndex.invalidate(event.clientId());
+            if (relayed) {
+                cacheService.evictClientLocal(event.clientId());
+            } else {
+                cacheService.evictClient(event.clientId());
+            }
+        }
+    }
+
+    @EventListener
+    public void onTenantPurged(ChangeEvent.TenantPurged event) {
+        log.debug("Evicting all caches for {}", event);
+        onDocsChanged(new ChangeEvent.DocsChanged(event.clientId()));
+        if (event.clientId() == null) {
+            // ids restart after a full wipe, nothing cached about the old clients may survive
+            onClientSettingsChanged(new ChangeEvent.ClientSettingsChanged(null));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.aiassistant.events;
+
+/**
+ * Something changed that other nodes may have cached. Published through {@link ChangeEventBus},
+ * delivered as a Spring application event on every node.
+ * A null client ID means the change affects every client.
+ */
+public sealed interface ChangeEvent {
+
+    Long clientId();
+
+    // Client row (settings, limits, keys) was updated.
+    record ClientSettingsChanged(Long clientId) implements ChangeEvent {
+    }
+
+    // Documents were added, removed or (re)indexed.
+    record DocsChanged(Long clientId) implements ChangeEvent {
+    }
+
+    // All of a client's data was deleted, or with a null ID the whole system was cleared.
+    record TenantPurged(Long clientId) implements ChangeEvent {
+    }
+
+    // vector_index_state was updated by a rebuild or retune, always sent with a null ID.
+    record VectorIndexChanged(Long clientId) implements ChangeEvent {
+    }
+
+    // "DocsChanged:42", "TenantPurged:*"
+    static String encode(ChangeEvent event) {
+        return event.getClass().getSimpleName() + ":" + (event.clientId() != null ? event.clientId() : "*");
+    }
+
+    static ChangeEvent decode(String text) {
+        int colon = text.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Malformed change event: " + text);
+        }
+        String id = text.substring(colon + 1);
+        Long clientId = id.equals("*") ? null : Long.valueOf(id);
+        return switch (text.substring(0, colon)) {
+            case "ClientSettingsChanged" -> new ClientSettingsChanged(clientId);
+            case "DocsChanged" -> new DocsChanged(clientId);
+            case "TenantPurged" -> new TenantPurged(clientId);
+            case "VectorIndexChanged" -> new VectorIndexChanged(clientId);
+            default -> throw new IllegalArgumentException("Unknown change event: " + text);
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.aiassistant.events;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publishes {@link ChangeEvent}s to this node and, when running on Postgres, to every other node.
+ * Inside a transaction the event is held back until commit, so no node evicts and reloads the old rows.
+ */
+@Component
+public class ChangeEventBus {
+
+    // set while an event from another node is delivered, see isRelayed()
+    private static final ThreadLocal<Boolean> RELAYED = new ThreadLocal<>();
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final ObjectProvider<PostgresNotifyRelay> relay;
+
+    public ChangeEventBus(ApplicationEventPublisher applicationEventPublisher,
+            ObjectProvider<PostgresNotifyRelay> relay) {
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.relay = relay;
+    }
+
+    public void publish(ChangeEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+        } else {
+            dispatch(event);
+        }
+    }
+
+    /**
+     * Whether the event being handled was published on another node. That node already updated the shared
+     * cache store, so listeners only drop what this node holds.
+     */
+    public static boolean isRelayed() {
+        return Boolean.TRUE.equals(RELAYED.get());
+    }
+
+    // hands an event from another node to this node's listeners
+    static void deliverRelayed(ApplicationEventPublisher publisher, ChangeEvent event) {
+        RELAYED.set(true);
+        try {
+            publisher.publishEvent(event);
+        } finally {
+            RELAYED.remove();
+        }
+    }
+
+    private void dispatch(ChangeEvent event) {
+        // local caches first, the other nodes a few milliseconds later
+        applicationEventPublisher.publishEvent(event);
+        relay.ifAvailable(r -> r.send(event));
+    }
+}
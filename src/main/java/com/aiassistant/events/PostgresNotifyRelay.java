@@ -0,0 +1,144 @@
+package com.aiassistant.events;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Carries {@link ChangeEvent}s between nodes with Postgres LISTEN/NOTIFY.
+ * Sending is a pg_notify on a pooled connection. Receiving runs on one thread holding its own
+ * connection outside the pool, which reconnects with backoff when the database drops it.
+ */
+@Component
+@ConditionalOnProperty(name = "app.events.postgres.enabled", havingValue = "true")
+public class PostgresNotifyRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresNotifyRelay.class);
+
+    static final String CHANNEL = "docuchat_changes";
+
+    // a node already applied its own events locally
+    private final String nodeId = UUID.randomUUID().toString();
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private volatile boolean running = true;
+    private Thread listener;
+
+    // how long one wait for notifications lasts before the connection is checked
+    @Value("${app.events.postgres.poll-timeout-ms:10000}")
+    private int pollTimeoutMs;
+
+    public PostgresNotifyRelay(JdbcTemplate jdbcTemplate, DataSourceProperties dataSourceProperties,
+            ApplicationEventPublisher applicationEventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @PostConstruct
+    public void start() {
+        listener = new Thread(this::listen, "pg-notify-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    void send(ChangeEvent event) {
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL,
+                    nodeId + "|" + ChangeEvent.encode(event));
+        } catch (DataAccessException e) {
+            // other nodes catch up when their ttls expire
+            log.warn("Could not notify other nodes of {}", event, e);
+        }
+    }
+
+    private void listen() {
+        long backoffMs = 1000;
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnecting) {
+                    // anything sent while we were away is lost, start over from the database
+                    for (ChangeEvent missed : List.of(new ChangeEvent.ClientSettingsChanged(null),
+                            new ChangeEvent.DocsChanged(null), new ChangeEvent.VectorIndexChanged(null))) {
+                        ChangeEventBus.deliverRelayed(applicationEventPublisher, missed);
+                    }
+                }
+                log.info("Listening for change events on channel {}", CHANNEL);
+                backoffMs = 1000;
+                reconnecting = true;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications == null || notifications.length == 0) {
+                        // quiet channel, make sure the connection is still alive
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        deliver(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Change event listener lost its connection, retrying in {}ms", backoffMs, e);
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, 30000);
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+        int separator = payload.indexOf('|');
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        try {
+            ChangeEvent event = ChangeEvent.decode(payload.substring(separator + 1));
+            log.debug("Received {} from another node", event);
+            ChangeEventBus.deliverRelayed(applicationEventPublisher, event);
+        } catch (RuntimeException e) {
+            log.warn("Ignoring change event '{}'", payload, e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+}
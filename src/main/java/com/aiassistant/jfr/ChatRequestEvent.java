@@ -0,0 +1,83 @@
+package com.aiassistant.jfr;
+
+import com.aiassistant.metrics.ChatMetrics;
+import com.aiassistant.metrics.ChatMetrics.Stage;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+import java.util.Locale;
+
+/**
+ * One widget chat request, from receiving the question until the answer has been streamed,
+ * with the time spent in each stage.
+ */
+@Name("com.aiassistant.ChatRequest")
+@Label("Chat Request")
+@Category({ "DocuChat", "Chat" })
+@Description("A widget chat request from the question until the end of the streamed answer")
+@StackTrace(false)
+@Threshold("100 ms")
+public final class ChatRequestEvent extends jdk.jfr.Event {
+
+    @Label("Client Id")
+    long clientId;
+
+    @Label("Outcome")
+    @Description("faq, cache, answered, fallback, shed or error")
+    String outcome;
+
+    @Label("Client Lookup")
+    @Timespan
+    long clientLookup;
+
+    @Label("FAQ Lookup")
+    @Timespan
+    long faqLookup;
+
+    @Label("Query Embedding")
+    @Timespan
+    long embedding;
+
+    @Label("Cache Lookup")
+    @Timespan
+    long cacheLookup;
+
+    @Label("Retrieval")
+    @Timespan
+    long retrieval;
+
+    @Label("Time To First Token")
+    @Timespan
+    long timeToFirstToken;
+
+    @Label("Tokens")
+    int tokens;
+
+    public static ChatRequestEvent start() {
+        ChatRequestEvent event = new ChatRequestEvent();
+        event.begin();
+        return event;
+    }
+
+    public void complete(Long clientId, ChatMetrics.RequestTimer timer) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.clientId = clientId != null ? clientId : 0;
+        this.outcome = timer.outcome() != null ? timer.outcome().name().toLowerCase(Locale.ROOT) : null;
+        this.clientLookup = timer.stageNanos(Stage.CLIENT_LOOKUP);
+        this.faqLookup = timer.stageNanos(Stage.FAQ_LOOKUP);
+        this.embedding = timer.stageNanos(Stage.EMBEDDING);
+        this.cacheLookup = timer.stageNanos(Stage.CACHE_LOOKUP);
+        this.retrieval = timer.stageNanos(Stage.RETRIEVAL);
+        this.timeToFirstToken = timer.ttftNanos();
+        this.tokens = timer.chunks();
+        commit();
+    }
+}
@@ -0,0 +1,50 @@
+package com.aiassistant.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Splitting one document into chunks for embedding.
+ */
+@Name("com.aiassistant.Chunking")
+@Label("Document Chunking")
+@Category({ "DocuChat", "Indexing" })
+@Description("Splitting a document into chunks before they are embedded")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class ChunkingEvent extends jdk.jfr.Event {
+
+    @Label("Document Id")
+    long docId;
+
+    @Label("Characters")
+    int chars;
+
+    @Label("Chunks")
+    int chunks;
+
+    @Label("Max Tokens")
+    int maxTokens;
+
+    public static ChunkingEvent start() {
+        ChunkingEvent event = new ChunkingEvent();
+        event.begin();
+        return event;
+    }
+
+    public void complete(Long docId, int chars, int chunks, int maxTokens) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.docId = docId != null ? docId : 0;
+        this.chars = chars;
+        this.chunks = chunks;
+        this.maxTokens = maxTokens;
+        commit();
+    }
+}
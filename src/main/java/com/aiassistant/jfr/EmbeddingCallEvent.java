@@ -0,0 +1,59 @@
+package com.aiassistant.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A call to the embeddings API, retries included: a query embedding that missed the cache, or a batch
+ * of chunks being indexed.
+ */
+@Name("com.aiassistant.EmbeddingCall")
+@Label("Embedding Call")
+@Category({ "DocuChat", "Model API" })
+@Description("A request to the embeddings API, retries included")
+@StackTrace(false)
+@Threshold("20 ms")
+public final class EmbeddingCallEvent extends jdk.jfr.Event {
+
+    @Label("Texts")
+    int texts;
+
+    @Label("Input Characters")
+    long inputChars;
+
+    @Label("Response Size")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    public static EmbeddingCallEvent start(int texts, long inputChars) {
+        EmbeddingCallEvent event = new EmbeddingCallEvent();
+        event.texts = texts;
+        event.inputChars = inputChars;
+        event.begin();
+        return event;
+    }
+
+    // the response is json, so its length in chars is its size in bytes
+    public void received(String body) {
+        responseBytes = body.length();
+    }
+
+    public void succeeded() {
+        succeeded = true;
+    }
+
+    public void complete() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.aiassistant.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * The lifetime of one streamed chat completion (SSE) from the model, retries included.
+ */
+@Name("com.aiassistant.ModelStream")
+@Label("Model Stream")
+@Category({ "DocuChat", "Model API" })
+@Description("A streamed chat completion from subscription until it completes, fails or is cancelled")
+@StackTrace(false)
+@Threshold("0 ms")
+public final class ModelStreamEvent extends jdk.jfr.Event {
+
+    @Label("Client Id")
+    long clientId;
+
+    @Label("Fallback")
+    @Description("Answered without knowledge base documents")
+    boolean fallback;
+
+    @Label("Time To First Chunk")
+    @Timespan
+    long timeToFirstChunk;
+
+    @Label("Chunks")
+    int chunks;
+
+    @Label("Result")
+    @Description("complete, error or cancel")
+    String result;
+
+    private transient long startNanos;
+
+    public static ModelStreamEvent start(Long clientId, boolean fallback) {
+        ModelStreamEvent event = new ModelStreamEvent();
+        event.clientId = clientId != null ? clientId : 0;
+        event.fallback = fallback;
+        event.startNanos = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    public void chunk() {
+        if (chunks++ == 0) {
+            timeToFirstChunk = System.nanoTime() - startNanos;
+        }
+    }
+
+    public void complete(String result) {
+        end();
+        if (shouldCommit()) {
+            this.result = result;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.aiassistant.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A nearest-neighbour search over a client's embeddings, including loading the matching documents.
+ */
+@Name("com.aiassistant.VectorSearch")
+@Label("Vector Search")
+@Category({ "DocuChat", "Retrieval" })
+@Description("A pgvector search for the chunks closest to a question and the loading of their documents")
+@StackTrace(false)
+@Threshold("10 ms")
+public final class VectorSearchEvent extends jdk.jfr.Event {
+
+    @Label("Client Id")
+    long clientId;
+
+    @Label("K")
+    @Description("Chunks asked for")
+    int k;
+
+    @Label("Quantization")
+    String quantization;
+
+    @Label("Re-rank Candidates")
+    @Description("Rows fetched through a quantized index before re-ranking, 0 without quantization")
+    int candidates;
+
+    @Label("Rows")
+    @Description("Chunks returned by the search")
+    int rows;
+
+    @Label("Documents")
+    int documents;
+
+    public static VectorSearchEvent start() {
+        VectorSearchEvent event = new VectorSearchEvent();
+        event.begin();
+        return event;
+    }
+
+    public void complete(long clientId, int k, String quantization, int candidates, int rows, int documents) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.clientId = clientId;
+        this.k = k;
+        this.quantization = quantization;
+        this.candidates = candidates;
+        this.rows = rows;
+        this.documents = documents;
+        commit();
+    }
+}
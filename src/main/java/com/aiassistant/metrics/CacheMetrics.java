@@ -0,0 +1,59 @@
+package com.aiassistant.metrics;
+
+import com.aiassistant.cache.TwoLevelCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Hits and misses of every {@link TwoLevelCache}, per level: "local" is the node's Caffeine cache,
+ * "shared" the lookups that went on to the shared store. The semantic answer cache is counted by
+ * {@link ChatMetrics} as the "cache" outcome.
+ */
+@Component
+public class CacheMetrics implements MeterBinder {
+
+    private final List<TwoLevelCache<?>> caches;
+
+    public CacheMetrics(List<TwoLevelCache<?>> caches) {
+        this.caches = caches;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (TwoLevelCache<?> cache : caches) {
+            gets(registry, cache, "local", "hit", c -> c.stats().hitCount());
+            gets(registry, cache, "local", "miss", c -> c.stats().missCount());
+            gets(registry, cache, "shared", "hit", TwoLevelCache::sharedHitCount);
+            gets(registry, cache, "shared", "miss", TwoLevelCache::sharedMissCount);
+
+            Gauge.builder("docuchat.cache.hit_ratio", cache, c -> c.stats().hitRate())
+                    .description("Share of local lookups that hit, since startup")
+                    .tag("cache", cache.name())
+                    .register(registry);
+            Gauge.builder("docuchat.cache.size", cache, TwoLevelCache::estimatedSize)
+                    .description("Entries in the local cache")
+                    .tag("cache", cache.name())
+                    .register(registry);
+            FunctionCounter.builder("docuchat.cache.evictions", cache, c -> c.stats().evictionCount())
+                    .description("Entries dropped from the local cache by size or expiry")
+                    .tag("cache", cache.name())
+                    .register(registry);
+        }
+    }
+
+    private static void gets(MeterRegistry registry, TwoLevelCache<?> cache, String level, String result,
+            ToDoubleFunction<TwoLevelCache<?>> count) {
+        FunctionCounter.builder("docuchat.cache.gets", cache, count)
+                .description("Cache lookups by level and result")
+                .tag("cache", cache.name())
+                .tag("level", level)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,220 @@
+package com.aiassistant.metrics;
+
+import com.aiassistant.service.LlmRequestScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers for each stage of the chat pipeline, exported as histograms on /actuator/prometheus.
+ * Every meter carries a client tag: the client id for the clients listed in app.metrics.client-tags,
+ * "other" for everyone else, so the number of series stays bounded however many tenants there are.
+ */
+@Component
+public class ChatMetrics {
+
+    public static final String OTHER_CLIENTS = "other";
+
+    public enum Stage {
+        CLIENT_LOOKUP, FAQ_LOOKUP, EMBEDDING, CACHE_LOOKUP, RETRIEVAL;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    // how a request was answered, or why it wasn't
+    public enum Outcome {
+        FAQ, CACHE, ANSWERED, FALLBACK, SHED, ERROR;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final MeterRegistry registry;
+    private final Set<Long> taggedClients;
+    // client tag -> meters, built once per tag
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public ChatMetrics(MeterRegistry registry, LlmRequestScheduler llmRequestScheduler,
+            @Value("${app.metrics.client-tags:}") List<Long> taggedClients) {
+        this.registry = registry;
+        this.taggedClients = Set.copyOf(taggedClients);
+
+        Gauge.builder("docuchat.llm.in_flight",
+                        llmRequestScheduler, s -> s.getMaxConcurrent() - s.getAvailableSlots())
+                .description("Chat-completion calls holding a scheduler slot")
+                .register(registry);
+        Gauge.builder("docuchat.llm.queued", llmRequestScheduler, LlmRequestScheduler::getQueuedRequests)
+                .description("Chat-completion calls waiting for a scheduler slot")
+                .register(registry);
+    }
+
+    /** Starts timing one chat request, the client is filled in once it has been looked up. */
+    public RequestTimer start() {
+        return new RequestTimer(System.nanoTime());
+    }
+
+    private Meters meters(Long clientId) {
+        String tag = clientId != null && taggedClients.contains(clientId) ? clientId.toString() : OTHER_CLIENTS;
+        return meters.computeIfAbsent(tag, Meters::new);
+    }
+
+    /**
+     * Timings of a single request. They are kept as well as recorded, so the caller can also report them
+     * to the browser. Plain fields, a request runs one stage or stream signal at a time.
+     */
+    public final class RequestTimer {
+
+        private final long startNanos;
+        private final long[] stageNanos = new long[Stage.values().length];
+        private Meters clientMeters = meters(null);
+        private long firstChunkNanos;
+        private long endNanos;
+        private int chunks;
+        private Outcome outcome;
+
+        private RequestTimer(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        public void client(Long clientId) {
+            clientMeters = meters(clientId);
+        }
+
+        /** Records the stage as having run from {@code sinceNanos} (a System.nanoTime()) until now. */
+        public void stage(Stage stage, long sinceNanos) {
+            long nanos = System.nanoTime() - sinceNanos;
+            stageNanos[stage.ordinal()] += nanos;
+            clientMeters.stages.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        // 0 when the stage did not run
+        public long stageNanos(Stage stage) {
+            return stageNanos[stage.ordinal()];
+        }
+
+        // from the start of the request to the first chunk, 0 before it was streamed
+        public long ttftNanos() {
+            return chunks > 0 ? firstChunkNanos - startNanos : 0;
+        }
+
+        // from the first to the last chunk, 0 until the stream has ended
+        public long streamNanos() {
+            return chunks > 0 && endNanos > 0 ? endNanos - firstChunkNanos : 0;
+        }
+
+        public int chunks() {
+            return chunks;
+        }
+
+        public void outcome(Outcome outcome) {
+            this.outcome = outcome;
+            clientMeters.outcomes.get(outcome).increment();
+        }
+
+        // last outcome counted, null while the answer is still streaming
+        public Outcome outcome() {
+            return outcome;
+        }
+
+        /**
+         * Measures the answer: time to first token from the start of the request, then the streaming time
+         * and number of chunks (about one token each) until the stream ends or is cancelled. Histograms are
+         * kept for the answers from the model only. The outcome is counted unless the stream fails, the
+         * error handler counts that instead.
+         */
+        public Flux<String> stream(Outcome outcome, Flux<String> answer) {
+            Meters m = clientMeters;
+            return answer
+                    .doOnNext(chunk -> {
+                        if (chunks++ == 0) {
+                            firstChunkNanos = System.nanoTime();
+                            Timer ttft = m.ttft.get(outcome);
+                            if (ttft != null) {
+                                ttft.record(firstChunkNanos - startNanos, TimeUnit.NANOSECONDS);
+                            }
+                        }
+                    })
+                    // before the completion reaches subscribers, so they can read streamNanos() and outcome()
+                    .doOnTerminate(() -> endNanos = System.nanoTime())
+                    .doOnComplete(() -> outcome(outcome))
+                    .doOnCancel(() -> outcome(outcome))
+                    .doFinally(signal -> {
+                        if (endNanos == 0) {
+                            endNanos = System.nanoTime(); // cancelled
+                        }
+                        if (m.tokens.containsKey(outcome)) {
+                            if (chunks > 0) {
+                                m.streamDuration.get(outcome).record(endNanos - firstChunkNanos,
+                                        TimeUnit.NANOSECONDS);
+                            }
+                            m.tokens.get(outcome).record(chunks);
+                        }
+                    });
+        }
+    }
+
+    private final class Meters {
+
+        final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+        final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+        // only the outcomes that call the model, see RequestTimer.stream
+        final Map<Outcome, Timer> ttft = new EnumMap<>(Outcome.class);
+        final Map<Outcome, Timer> streamDuration = new EnumMap<>(Outcome.class);
+        final Map<Outcome, DistributionSummary> tokens = new EnumMap<>(Outcome.class);
+
+        Meters(String client) {
+            for (Stage stage : Stage.values()) {
+                stages.put(stage, histogram(Timer.builder("docuchat.chat.stage")
+                        .description("Time spent in one stage of the chat pipeline before the model is called")
+                        .tag("stage", stage.tag)
+                        .tag("client", client), Duration.ofMillis(1), Duration.ofSeconds(10)));
+            }
+            for (Outcome outcome : Outcome.values()) {
+                outcomes.put(outcome, Counter.builder("docuchat.chat.requests")
+                        .description("Chat requests by how they were answered")
+                        .tag("outcome", outcome.tag)
+                        .tag("client", client)
+                        .register(registry));
+            }
+            for (Outcome outcome : List.of(Outcome.ANSWERED, Outcome.FALLBACK)) {
+                ttft.put(outcome, histogram(Timer.builder("docuchat.chat.ttft")
+                        .description("Time from receiving the question to the first streamed token")
+                        .tag("outcome", outcome.tag)
+                        .tag("client", client), Duration.ofMillis(50), Duration.ofSeconds(60)));
+                streamDuration.put(outcome, histogram(Timer.builder("docuchat.chat.stream")
+                        .description("Time from the first to the last streamed token")
+                        .tag("outcome", outcome.tag)
+                        .tag("client", client), Duration.ofMillis(50), Duration.ofSeconds(120)));
+                tokens.put(outcome, DistributionSummary.builder("docuchat.chat.tokens")
+                        .description("Chunks streamed per answer, about one token each")
+                        .baseUnit("tokens")
+                        .tag("outcome", outcome.tag)
+                        .tag("client", client)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(1.0)
+                        .maximumExpectedValue(4096.0)
+                        .register(registry));
+            }
+        }
+
+        private Timer histogram(Timer.Builder builder, Duration min, Duration max) {
+            return builder.publishPercentileHistogram()
+                    .minimumExpectedValue(min)
+                    .maximumExpectedValue(max)
+                    .register(registry);
+        }
+    }
+}
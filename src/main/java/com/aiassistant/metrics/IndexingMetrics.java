@@ -0,0 +1,74 @@
+package com.aiassistant.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Indexing throughput: documents and chunks embedded, embedding API batches and indexing task results.
+ * Rates come from the counters, e.g. rate(docuchat_indexing_chunks_total[5m]).
+ */
+@Component
+public class IndexingMetrics {
+
+    private final Counter documents;
+    private final Counter chunks;
+    private final Timer embeddingBatches;
+    private final Timer tasksCompleted;
+    private final Counter tasksLost;
+    private final Counter tasksFailed;
+
+    public IndexingMetrics(MeterRegistry registry) {
+        this.documents = Counter.builder("docuchat.indexing.documents")
+                .description("Documents whose chunks were all embedded and stored")
+                .register(registry);
+        this.chunks = Counter.builder("docuchat.indexing.chunks")
+                .description("Chunks embedded and stored")
+                .register(registry);
+        this.embeddingBatches = Timer.builder("docuchat.indexing.embedding_batch")
+                .description("Embedding API calls for a batch of chunks")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofSeconds(60))
+                .register(registry);
+        this.tasksCompleted = Timer.builder("docuchat.indexing.tasks")
+                .description("Indexing tasks completed by this node's workers")
+                .register(registry);
+        this.tasksLost = Counter.builder("docuchat.indexing.tasks.abandoned")
+                .description("Indexing tasks this node stopped working on")
+                .tag("reason", "lease_lost")
+                .register(registry);
+        this.tasksFailed = Counter.builder("docuchat.indexing.tasks.abandoned")
+                .description("Indexing tasks this node stopped working on")
+                .tag("reason", "failed")
+                .register(registry);
+    }
+
+    public void documentsIndexed(int count) {
+        documents.increment(count);
+    }
+
+    public void chunksStored(int count) {
+        chunks.increment(count);
+    }
+
+    public void embeddingBatch(long sinceNanos) {
+        embeddingBatches.record(System.nanoTime() - sinceNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void taskCompleted(long sinceNanos) {
+        tasksCompleted.record(System.nanoTime() - sinceNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void taskLeaseLost() {
+        tasksLost.increment();
+    }
+
+    public void taskFailed() {
+        tasksFailed.increment();
+    }
+}
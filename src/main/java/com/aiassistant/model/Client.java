@@ -33,6 +33,19 @@ public class Client {
     @Column(columnDefinition = "TEXT")
     private String welcomeMessage = "Hi! How can I help you today?";
 
+    // chat admission limits, null means the app.rate-limit defaults
+    private Integer rateLimitPerMinute;
+
+    private Integer rateLimitBurst;
+
+    private Integer maxConcurrentStreams;
+
+    // share of the model slots when the provider is saturated, null means 1
+    private Integer llmWeight;
+
+    // send a timing event after each streamed answer, null means off
+    private Boolean streamTiming;
+
     @CreationTimestamp
     private Instant createdAt;
 
@@ -103,6 +116,46 @@ public class Client {
         this.welcomeMessage = welcomeMessage;
     }
 
+    public Integer getRateLimitPerMinute() {
+        return rateLimitPerMinute;
+    }
+
+    public void setRateLimitPerMinute(Integer rateLimitPerMinute) {
+        this.rateLimitPerMinute = rateLimitPerMinute;
+    }
+
+    public Integer getRateLimitBurst() {
+        return rateLimitBurst;
+    }
+
+    public void setRateLimitBurst(Integer rateLimitBurst) {
+        this.rateLimitBurst = rateLimitBurst;
+    }
+
+    public Integer getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    public void setMaxConcurrentStreams(Integer maxConcurrentStreams) {
+        this.maxConcurrentStreams = maxConcurrentStreams;
+    }
+
+    public Integer getLlmWeight() {
+        return llmWeight;
+    }
+
+    public void setLlmWeight(Integer llmWeight) {
+        this.llmWeight = llmWeight;
+    }
+
+    public Boolean getStreamTiming() {
+        return streamTiming;
+    }
+
+    public void setStreamTiming(Boolean streamTiming) {
+        this.streamTiming = streamTiming;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
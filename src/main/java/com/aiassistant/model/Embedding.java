@@ -15,12 +15,12 @@ public class Embedding {
     @JoinColumn(name = "doc_id", nullable = false)
     private FaqDoc doc; // Which FAQ document this embedding belongs to.
 
+    @Column(name = "client_id", nullable = false)
+    private Long clientId; // Copy of doc.client, the embeddings table is partitioned on it.
+
     @Column(name = "vector_data", columnDefinition = "TEXT")
     private String vectorData; // The actual vector (stored as JSON string).
 
-    @jakarta.persistence.Transient
-    private String vectorDataPgvector; // Vector in pgvector format (handled separately)
-
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -43,20 +43,20 @@ public class Embedding {
         this.doc = doc;
     }
 
-    public String getVectorData() {
-        return vectorData;
+    public Long getClientId() {
+        return clientId;
     }
 
-    public void setVectorData(String vectorData) {
-        this.vectorData = vectorData;
+    public void setClientId(Long clientId) {
+        this.clientId = clientId;
     }
 
-    public String getVectorDataPgvector() {
-        return vectorDataPgvector;
+    public String getVectorData() {
+        return vectorData;
     }
 
-    public void setVectorDataPgvector(String vectorDataPgvector) {
-        this.vectorDataPgvector = vectorDataPgvector;
+    public void setVectorData(String vectorData) {
+        this.vectorData = vectorData;
     }
 
     public LocalDateTime getCreatedAt() {
@@ -5,58 +5,29 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 // Helps us save and find Embedding data in the database.
 public interface EmbeddingRepository extends JpaRepository<Embedding, Long> {
-        // Get all embeddings for a specific client's documents.
-        List<Embedding> findByDocClientId(Long clientId);
-
         /**
-         * Find top K most similar embeddings using pgvector cosine similarity.
-         * Uses the <=> operator for cosine distance (lower is more similar).
-         * 
-         * @param clientId    The client ID to filter by
-         * @param queryVector The query embedding vector as a string (e.g., "[0.1, 0.2,
-         *                    ...]")
-         * @param limit       Maximum number of results to return
-         * @return List of embeddings ordered by similarity (most similar first)
+         * Check if a document has a valid embedding with non-null pgvector data.
          */
-        @Query(value = """
-                        SELECT e.* FROM embeddings e
-                        INNER JOIN faq_docs d ON e.doc_id = d.id
-                        WHERE d.client_id = :clientId
-                        AND e.vector_data_pgvector IS NOT NULL
-                        ORDER BY e.vector_data_pgvector <=> CAST(:queryVector AS vector)
-                        LIMIT :limit
-                        """, nativeQuery = true)
-        List<Embedding> findTopKSimilarByClientId(
-                        @Param("clientId") Long clientId,
-                        @Param("queryVector") String queryVector,
-                        @Param("limit") int limit);
+        @Query(value = "SELECT COUNT(*) > 0 FROM embeddings WHERE doc_id = :docId AND vector_data_pgvector IS NOT NULL", nativeQuery = true)
+        boolean isDocumentIndexed(@Param("docId") Long docId);
+
+        // Helper to find by doc ID (needed for cleanup)
+        List<Embedding> findByDocId(Long docId);
 
         /**
-         * Update the pgvector column for an embedding using native SQL with proper
-         * casting.
+         * Delete the embeddings of one id range of a client's documents.
          * Must be called within a transactional context.
          */
-        @Transactional
         @Modifying
         @Query(value = """
-                        UPDATE embeddings
-                        SET vector_data_pgvector = CAST(:vectorString AS vector)
-                        WHERE id = :embeddingId
+                        DELETE FROM embeddings
+                        WHERE client_id = :clientId AND doc_id > :afterId AND doc_id <= :upperId
                         """, nativeQuery = true)
-        void updatePgVector(@Param("embeddingId") Long embeddingId, @Param("vectorString") String vectorString);
-
-        /**
-         * Check if a document has a valid embedding with non-null pgvector data.
-         */
-        @Query(value = "SELECT COUNT(*) > 0 FROM embeddings WHERE doc_id = :docId AND vector_data_pgvector IS NOT NULL", nativeQuery = true)
-        boolean isDocumentIndexed(@Param("docId") Long docId);
-
-        // Helper to find by doc ID (needed for cleanup)
-        List<Embedding> findByDocId(Long docId);
+        int deleteByClientIdAndDocIdRange(@Param("clientId") Long clientId, @Param("afterId") long afterId,
+                        @Param("upperId") long upperId);
 }
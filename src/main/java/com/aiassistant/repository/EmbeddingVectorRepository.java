@@ -0,0 +1,104 @@
+package com.aiassistant.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Reads and writes the pgvector column of embeddings with vectors bound as {@link PgVector}s.
+ * Plain JDBC because Hibernate has no mapping for the vector type. On H2 (the dev profile) there is no
+ * vector column: searches find nothing, so every question takes the fallback path, and vectors aren't stored.
+ */
+@Repository
+public class EmbeddingVectorRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingVectorRepository.class);
+
+    private static final String UPDATE_SQL =
+            "UPDATE embeddings SET vector_data_pgvector = ? WHERE id = ? AND client_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // looked up on first use, after the migrations have run
+    private volatile Boolean available;
+
+    public EmbeddingVectorRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Doc ids of the client's {@code limit} chunks closest to the query by cosine distance, closest first.
+     * A document shows up once per matching chunk. Filtering on embeddings.client_id keeps the scan to the
+     * client's partition. With a quantized index the closest {@code candidates} by the quantized distance
+     * are re-ranked by their full-precision vectors.
+     */
+    public List<Long> findNearestDocIds(Long clientId, float[] queryVector, int limit,
+            VectorQuantization quantization, int candidates) {
+        return findNearest("doc_id", clientId, queryVector, limit, quantization, candidates);
+    }
+
+    // same search returning embedding ids, for comparing against an exact scan
+    public List<Long> findNearestIds(Long clientId, float[] queryVector, int limit,
+            VectorQuantization quantization, int candidates) {
+        return findNearest("id", clientId, queryVector, limit, quantization, candidates);
+    }
+
+    private List<Long> findNearest(String column, Long clientId, float[] queryVector, int limit,
+            VectorQuantization quantization, int candidates) {
+        if (!isAvailable()) {
+            return List.of();
+        }
+        String sql = quantization.nearestSql(column, queryVector.length);
+        return jdbcTemplate.query(connection -> {
+            PgVector.enableBinaryTransfer(connection);
+            PreparedStatement ps = connection.prepareStatement(sql);
+            PgVector query = new PgVector(queryVector);
+            ps.setLong(1, clientId);
+            ps.setObject(2, query);
+            if (quantization.reranks()) {
+                ps.setInt(3, Math.max(limit, candidates));
+                ps.setObject(4, query);
+                ps.setInt(5, limit);
+            } else {
+                ps.setInt(3, limit);
+            }
+            return ps;
+        }, (rs, i) -> rs.getLong(1));
+    }
+
+    // client id included so only the client's partition is touched
+    public void updateVector(Long embeddingId, Long clientId, float[] vector) {
+        if (!isAvailable()) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            PgVector.enableBinaryTransfer(connection);
+            PreparedStatement ps = connection.prepareStatement(UPDATE_SQL);
+            ps.setObject(1, new PgVector(vector));
+            ps.setLong(2, embeddingId);
+            ps.setLong(3, clientId);
+            return ps;
+        });
+    }
+
+    // whether embeddings has the pgvector column, i.e. the database is Postgres with the postgresql migrations
+    public boolean isAvailable() {
+        Boolean current = available;
+        if (current == null) {
+            Integer columns = jdbcTemplate.queryForObject("""
+                    SELECT COUNT(*) FROM information_schema.columns
+                    WHERE LOWER(table_name) = 'embeddings' AND LOWER(column_name) = 'vector_data_pgvector'
+                    """, Integer.class);
+            current = columns != null && columns > 0;
+            if (!current) {
+                log.warn("embeddings has no pgvector column, vector search is off and questions get fallback answers");
+            }
+            available = current;
+        }
+        return current;
+    }
+}
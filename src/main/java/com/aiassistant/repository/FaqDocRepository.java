@@ -1,8 +1,11 @@
 package com.aiassistant.repository;
 
-import com.aiassistant.model.Client;
 import com.aiassistant.model.FaqDoc;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
 
 // Helps us save and find FaqDoc data in the database.
@@ -10,6 +13,53 @@ public interface FaqDocRepository extends JpaRepository<FaqDoc, Long> {
     // Get all FAQ documents for a specific client.
     List<FaqDoc> findByClientId(Long clientId);
 
-    // Delete all documents for a specific client and return the number of deleted rows.
-    long deleteByClient(Client client);
+    // Get the structured question/answer rows for a client (uploaded files are stored as "Document: <name>").
+    @Query("SELECT d FROM FaqDoc d WHERE d.client.id = :clientId AND d.question NOT LIKE 'Document: %'")
+    List<FaqDoc> findQuestionAnswerPairsByClientId(@Param("clientId") Long clientId);
+
+    @Query("SELECT MAX(d.id) FROM FaqDoc d WHERE d.client.id = :clientId")
+    Long findMaxIdByClientId(@Param("clientId") Long clientId);
+
+    // Upper id of the next batch of a client's documents after afterId, used to purge in id ranges.
+    @Query(value = """
+            SELECT CAST(MAX(id) AS BIGINT) FROM (
+                SELECT id FROM faq_docs
+                WHERE client_id = :clientId AND id > :afterId AND id <= :lastId
+                ORDER BY id
+                LIMIT :limit
+            ) batch
+            """, nativeQuery = true)
+    Long findBatchUpperBound(@Param("clientId") Long clientId, @Param("afterId") long afterId,
+            @Param("lastId") long lastId, @Param("limit") int limit);
+
+    // Upper id of the next batch of a client's documents without embeddings up to upToId, used to split
+    // indexing into tasks.
+    @Query(value = """
+            SELECT CAST(MAX(id) AS BIGINT) FROM (
+                SELECT d.id FROM faq_docs d
+                WHERE d.client_id = :clientId AND d.id > :afterId AND d.id <= :upToId
+                AND NOT EXISTS (SELECT 1 FROM embeddings e WHERE e.doc_id = d.id)
+                ORDER BY d.id
+                LIMIT :limit
+            ) batch
+            """, nativeQuery = true)
+    Long findUnindexedBatchUpperBound(@Param("clientId") Long clientId, @Param("afterId") long afterId,
+            @Param("upToId") long upToId, @Param("limit") int limit);
+
+    @Query("SELECT d FROM FaqDoc d WHERE d.client.id = :clientId AND d.id > :afterId AND d.id <= :upperId ORDER BY d.id")
+    List<FaqDoc> findByClientIdAndIdRange(@Param("clientId") Long clientId, @Param("afterId") long afterId,
+            @Param("upperId") long upperId);
+
+    // The documents of one id range that have no embeddings yet.
+    @Query("SELECT d FROM FaqDoc d WHERE d.client.id = :clientId AND d.id > :afterId AND d.id <= :upperId "
+            + "AND NOT EXISTS (SELECT e.id FROM Embedding e WHERE e.doc = d) ORDER BY d.id")
+    List<FaqDoc> findUnindexedByClientIdAndIdRange(@Param("clientId") Long clientId, @Param("afterId") long afterId,
+            @Param("upperId") long upperId);
+
+    // Set-based delete of one id range, the caller provides the transaction.
+    @Modifying
+    @Query(value = "DELETE FROM faq_docs WHERE client_id = :clientId AND id > :afterId AND id <= :upperId",
+            nativeQuery = true)
+    int deleteByClientIdAndIdRange(@Param("clientId") Long clientId, @Param("afterId") long afterId,
+            @Param("upperId") long upperId);
 }
@@ -0,0 +1,120 @@
+package com.aiassistant.repository;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Oid;
+import org.postgresql.util.PGBinaryObject;
+import org.postgresql.util.PGobject;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A pgvector {@code vector} as a JDBC parameter.
+ * On connections prepared with {@link #enableBinaryTransfer(Connection)} the driver sends it in pgvector's
+ * binary format (int16 dimensions, int16 unused, then big-endian float4s), so neither side formats or
+ * parses decimal text. Elsewhere the driver falls back to the text form from {@link #getValue()}.
+ */
+public class PgVector extends PGobject implements PGBinaryObject {
+
+    static final String TYPE = "vector";
+
+    private float[] vector;
+
+    public PgVector() {
+        setType(TYPE);
+    }
+
+    public PgVector(float[] vector) {
+        this();
+        this.vector = vector;
+    }
+
+    /**
+     * Makes the driver send vector parameters on this connection in binary. The type's oid differs
+     * per database, so it is looked up (and cached by the driver) on the connection itself.
+     */
+    public static void enableBinaryTransfer(Connection connection) throws SQLException {
+        if (!connection.isWrapperFor(BaseConnection.class)) {
+            return;
+        }
+        BaseConnection pgConnection = connection.unwrap(BaseConnection.class);
+        int oid = pgConnection.getTypeInfo().getPGType(TYPE);
+        if (oid != Oid.UNSPECIFIED) {
+            pgConnection.getQueryExecutor().addBinarySendOid(oid);
+        }
+    }
+
+    public float[] toArray() {
+        return vector;
+    }
+
+    @Override
+    public int lengthInBytes() {
+        return vector == null ? 0 : 4 + 4 * vector.length;
+    }
+
+    @Override
+    public void toBytes(byte[] bytes, int offset) {
+        bytes[offset] = (byte) (vector.length >>> 8);
+        bytes[offset + 1] = (byte) vector.length;
+        bytes[offset + 2] = 0;
+        bytes[offset + 3] = 0;
+        int pos = offset + 4;
+        for (float value : vector) {
+            int bits = Float.floatToIntBits(value);
+            bytes[pos++] = (byte) (bits >>> 24);
+            bytes[pos++] = (byte) (bits >>> 16);
+            bytes[pos++] = (byte) (bits >>> 8);
+            bytes[pos++] = (byte) bits;
+        }
+    }
+
+    @Override
+    public void setByteValue(byte[] value, int offset) throws SQLException {
+        int dimensions = ((value[offset] & 0xff) << 8) | (value[offset + 1] & 0xff);
+        float[] parsed = new float[dimensions];
+        int pos = offset + 4;
+        for (int i = 0; i < dimensions; i++) {
+            int bits = ((value[pos] & 0xff) << 24) | ((value[pos + 1] & 0xff) << 16)
+                    | ((value[pos + 2] & 0xff) << 8) | (value[pos + 3] & 0xff);
+            parsed[i] = Float.intBitsToFloat(bits);
+            pos += 4;
+        }
+        vector = parsed;
+    }
+
+    @Override
+    public String getValue() {
+        if (vector == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(vector.length * 10 + 2).append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(vector[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    @Override
+    public void setValue(String value) throws SQLException {
+        if (value == null) {
+            vector = null;
+            return;
+        }
+        String body = value.trim();
+        body = body.substring(1, body.length() - 1);
+        if (body.isBlank()) {
+            vector = new float[0];
+            return;
+        }
+        String[] parts = body.split(",");
+        float[] parsed = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            parsed[i] = Float.parseFloat(parts[i].trim());
+        }
+        vector = parsed;
+    }
+}
@@ -0,0 +1,71 @@
+package com.aiassistant.repository;
+
+import java.util.Locale;
+
+/**
+ * How the vector index stores embeddings. The quantized forms make the index 2x (halfvec) or 32x
+ * (binary) smaller; searches then fetch {@code rerank-candidates} rows through the index and order
+ * them by the full-precision vectors kept in the table.
+ */
+public enum VectorQuantization {
+
+    // float4, the column as is
+    NONE,
+    // float2 per dimension
+    HALFVEC,
+    // one bit per dimension, compared by hamming distance
+    BINARY;
+
+    public static VectorQuantization parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unsupported vector quantization: " + value);
+        }
+    }
+
+    public boolean reranks() {
+        return this != NONE;
+    }
+
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    // the indexed expression and its operator class, for CREATE INDEX ... USING <type> (<this>)
+    public String indexExpression(int dimensions) {
+        return switch (this) {
+            case NONE -> "vector_data_pgvector vector_cosine_ops";
+            case HALFVEC -> "(vector_data_pgvector::halfvec(" + dimensions + ")) halfvec_cosine_ops";
+            case BINARY -> "(binary_quantize(vector_data_pgvector)::bit(" + dimensions + ")) bit_hamming_ops";
+        };
+    }
+
+    /**
+     * Nearest rows of one client, closest first, returning {@code column} of embeddings e.
+     * Parameters: client id, query vector and limit; quantized searches take the client id, query vector,
+     * candidate count, query vector again and limit. The distance has to match {@link #indexExpression}
+     * exactly or the planner won't use the index.
+     */
+    public String nearestSql(String column, int dimensions) {
+        String candidateOrder = switch (this) {
+            case NONE -> "e.vector_data_pgvector <=> CAST(? AS vector)";
+            case HALFVEC -> "e.vector_data_pgvector::halfvec(" + dimensions + ") <=> CAST(? AS halfvec("
+                    + dimensions + "))";
+            case BINARY -> "binary_quantize(e.vector_data_pgvector)::bit(" + dimensions
+                    + ") <~> binary_quantize(CAST(? AS vector))::bit(" + dimensions + ")";
+        };
+        String candidates = """
+                SELECT e.%s AS result%s FROM embeddings e
+                WHERE e.client_id = ? AND e.vector_data_pgvector IS NOT NULL
+                ORDER BY %s
+                LIMIT ?
+                """.formatted(column, reranks() ? ", e.vector_data_pgvector" : "", candidateOrder);
+        if (!reranks()) {
+            return candidates;
+        }
+        // exact cosine distance over the candidates only
+        return "SELECT c.result FROM (" + candidates + ") c "
+                + "ORDER BY c.vector_data_pgvector <=> CAST(? AS vector) LIMIT ?";
+    }
+}
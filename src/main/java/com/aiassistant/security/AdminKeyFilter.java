@@ -1,9 +1,8 @@
 package com.aiassistant.security;
 
+import com.aiassistant.cache.TwoLevelCache;
 import com.aiassistant.model.Client;
 import com.aiassistant.repository.ClientRepository;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,7 +14,6 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -23,17 +21,17 @@ import java.util.regex.Pattern;
 public class AdminKeyFilter extends OncePerRequestFilter {
 
     private final ClientRepository clientRepository;
-    private static final List<String> EXCLUDED_PATHS = List.of("/api/clients/create", "/api/clients/admin/data");
+    // system-wide endpoints, checked against the system admin key by the controller
+    private static final List<String> EXCLUDED_PATHS = List.of("/api/clients/create", "/api/clients/admin/data",
+            "/api/clients/admin/vector-index", "/api/clients/admin/vector-index/rebuild");
     private static final Pattern CLIENT_ID_PATTERN = Pattern.compile("/api/clients/(\\d+)/.*");
 
-    // Cache valid admin keys for 5 minutes to reduce DB load
-    private final Cache<String, Long> adminKeyCache = Caffeine.newBuilder()
-            .expireAfterWrite(5, TimeUnit.MINUTES)
-            .maximumSize(1000)
-            .build();
+    // Valid admin keys, shared between nodes (see CacheConfig)
+    private final TwoLevelCache<Long> adminKeyCache;
 
-    public AdminKeyFilter(ClientRepository clientRepository) {
+    public AdminKeyFilter(ClientRepository clientRepository, TwoLevelCache<Long> adminKeyCache) {
         this.clientRepository = clientRepository;
+        this.adminKeyCache = adminKeyCache;
     }
 
     @Override
@@ -56,7 +54,7 @@ public class AdminKeyFilter extends OncePerRequestFilter {
             return;
         }
 
-        Long authenticatedClientId = adminKeyCache.getIfPresent(providedKey);
+        Long authenticatedClientId = adminKeyCache.get(providedKey);
 
         if (authenticatedClientId == null) {
             Optional<Client> clientOpt = clientRepository.findByAdminKey(providedKey);
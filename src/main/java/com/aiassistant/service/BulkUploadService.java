@@ -0,0 +1,262 @@
+package com.aiassistant.service;
+
+import com.aiassistant.config.DataSourceWorkload;
+import com.aiassistant.dto.BulkUploadResponse;
+import com.aiassistant.dto.IngestionStatus;
+import com.aiassistant.repository.ClientRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Accepts many documents in one request, either as separate multipart files or inside ZIP archives.
+ * The request only spools the uploads to disk and hands out their ingestion handles; a background
+ * thread then queues the files for ingestion and unpacks the archives. Archive entries are streamed
+ * one at a time onto disk, never unpacked in memory, and every one becomes its own ingestion job,
+ * listed with its own handle (or the reason it was skipped) on the handle of its archive.
+ */
+@Service
+public class BulkUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkUploadService.class);
+
+    private static final Set<String> SUPPORTED_EXTENSIONS = Set.of("pdf", "txt", "md");
+
+    private final ClientRepository clientRepository;
+    private final IngestionService ingestionService;
+    private final ThreadPoolExecutor executor;
+
+    // files taken from one archive, supported or not
+    @Value("${app.ingestion.bulk.max-entries:2000}")
+    private int maxEntries;
+
+    // guards against zip bombs, counted over all entries of one archive
+    @Value("${app.ingestion.bulk.max-uncompressed-mb:2048}")
+    private long maxUncompressedMb;
+
+    // how long one file may wait for room in the ingestion queue before it is failed
+    @Value("${app.ingestion.bulk.queue-wait-seconds:600}")
+    private long queueWaitSeconds;
+
+    public BulkUploadService(ClientRepository clientRepository, IngestionService ingestionService,
+            @Value("${app.ingestion.bulk.queue-capacity:10}") int queueCapacity) {
+        this.clientRepository = clientRepository;
+        this.ingestionService = ingestionService;
+
+        // one bulk upload is queued at a time, it mostly waits for room in the ingestion queue
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "bulk-upload-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public BulkUploadResponse upload(Long clientId, List<MultipartFile> files) {
+        if (!clientRepository.existsById(clientId)) {
+            throw new RuntimeException("Client not found with ID: " + clientId);
+        }
+
+        BulkUploadResponse response = new BulkUploadResponse();
+        List<Spooled> spooled = new ArrayList<>();
+        for (MultipartFile file : files) {
+            String filename = file.getOriginalFilename();
+            boolean archive = extensionOf(filename).equals("zip");
+            if (file.isEmpty()) {
+                response.addRejected(filename, "File is empty");
+            } else if (!archive && !isSupported(filename)) {
+                response.addRejected(filename, "Unsupported file type");
+            } else {
+                Path path = null;
+                try {
+                    path = Files.createTempFile("docuchat-upload-", ".tmp");
+                    file.transferTo(path);
+                    spooled.add(new Spooled(ingestionService.open(clientId, filename), path, archive));
+                } catch (IOException e) {
+                    log.error("Failed to spool '{}'", filename, e);
+                    deleteQuietly(path);
+                    response.addRejected(filename, "Error reading file: " + e.getMessage());
+                }
+            }
+        }
+
+        if (!spooled.isEmpty()) {
+            try {
+                executor.execute(() -> DataSourceWorkload.bulk(() -> spooled.forEach(this::process)));
+            } catch (RejectedExecutionException e) {
+                for (Spooled upload : spooled) {
+                    deleteQuietly(upload.path());
+                    upload.job().fail(IngestionService.TOO_BUSY);
+                }
+            }
+        }
+        for (Spooled upload : spooled) {
+            IngestionStatus status = upload.job().toStatus();
+            if (IngestionJob.State.FAILED.name().equals(status.getState())) {
+                response.addRejected(status.getFilename(), status.getError());
+            } else {
+                response.addAccepted(status.getFilename(), status);
+            }
+        }
+
+        log.info("Bulk upload for client ID {}: {} upload(s) accepted, {} rejected", clientId,
+                response.getAccepted(), response.getRejected());
+        return response;
+    }
+
+    // never throws, so the uploads after a failed one are still processed and their files cleaned up
+    private void process(Spooled upload) {
+        IngestionJob job = upload.job();
+        if (!upload.archive()) {
+            try {
+                // once queued the ingestion owns the spooled file
+                ingestionService.queue(job, upload.path(), Duration.ofSeconds(queueWaitSeconds));
+            } catch (RuntimeException e) {
+                log.error("Failed to queue '{}'", job.getFilename(), e);
+                deleteQuietly(upload.path());
+                job.fail("Error processing upload: " + e.getMessage());
+            }
+            return;
+        }
+        job.setState(IngestionJob.State.EXTRACTING);
+        try {
+            unpack(job, upload.path());
+            job.complete();
+        } catch (IOException e) {
+            log.error("Failed to read archive '{}'", job.getFilename(), e);
+            job.fail("Error reading archive: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // e.g. a malformed entry name, or the database being unreachable while queueing an entry
+            log.error("Failed to unpack archive '{}'", job.getFilename(), e);
+            job.fail("Error processing archive: " + e.getMessage());
+        } finally {
+            deleteQuietly(upload.path());
+        }
+    }
+
+    // queues every supported entry as its own job, recorded on the archive's job
+    private void unpack(IngestionJob archive, Path path) throws IOException {
+        long remaining = maxUncompressedMb * 1024 * 1024;
+        int entries = 0;
+        try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (entry.isDirectory() || isIgnored(name)) {
+                    continue;
+                }
+                if (++entries > maxEntries) {
+                    archive.addRejectedEntry(name, "Archive has more than " + maxEntries
+                            + " files, the rest were skipped");
+                    return;
+                }
+                if (!isSupported(name)) {
+                    archive.addRejectedEntry(name, "Unsupported file type");
+                    continue;
+                }
+
+                // entry names are only used as labels, nothing is written to a path taken from the archive
+                Path spooled = Files.createTempFile("docuchat-upload-", ".tmp");
+                long copied;
+                try {
+                    copied = copyAtMost(zip, spooled, remaining);
+                } catch (IOException e) {
+                    deleteQuietly(spooled);
+                    throw e;
+                }
+                if (copied < 0) {
+                    deleteQuietly(spooled);
+                    archive.addRejectedEntry(name, "Archive exceeds " + maxUncompressedMb
+                            + " MB uncompressed, the rest were skipped");
+                    return;
+                }
+                remaining -= copied;
+                IngestionJob job = ingestionService.open(archive.getClientId(), name);
+                archive.addEntry(job);
+                try {
+                    ingestionService.queue(job, spooled, Duration.ofSeconds(queueWaitSeconds));
+                } catch (RuntimeException e) {
+                    deleteQuietly(spooled);
+                    job.fail("Error processing upload: " + e.getMessage());
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // copies the current entry, returns -1 once more than limit bytes were read
+    private long copyAtMost(InputStream in, Path target, long limit) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > limit) {
+                    return -1;
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return total;
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled upload {}", file, e);
+        }
+    }
+
+    private boolean isIgnored(String name) {
+        String base = name.substring(name.lastIndexOf('/') + 1);
+        return name.startsWith("__MACOSX/") || base.startsWith(".");
+    }
+
+    private boolean isSupported(String filename) {
+        return SUPPORTED_EXTENSIONS.contains(extensionOf(filename));
+    }
+
+    private String extensionOf(String filename) {
+        if (filename == null || filename.lastIndexOf('.') < 0) {
+            return "";
+        }
+        return filename.substring(filename.lastIndexOf('.') + 1).toLowerCase();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // an upload spooled by the request and its handle, queued or unpacked later
+    private record Spooled(IngestionJob job, Path path, boolean archive) {
+    }
+}
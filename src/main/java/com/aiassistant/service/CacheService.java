@@ -1,8 +1,19 @@
 package com.aiassistant.service;
 
+import com.aiassistant.cache.CacheTier;
+import com.aiassistant.cache.SharedCacheStore;
 import com.aiassistant.dto.AnswerDTO;
+import com.aiassistant.vector.VectorMath;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -10,57 +21,231 @@ import java.util.concurrent.ConcurrentHashMap;
 @Service
 public class CacheService {
 
-    // A thread-safe map to store cached embeddings and their corresponding answers.
-    // Key: A float[] representing the query embedding.
-    // Value: The AnswerDTO that was generated for that query.
-    private final Map<float[], AnswerDTO> semanticCache = new ConcurrentHashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(CacheService.class);
+
+    private static final String CACHE_NAME = "semantic";
+    // hash field counting the answers written for a client, the answers go in slots 0..max-entries-1
+    private static final String SEQUENCE_FIELD = "seq";
+
+    // Cached query embeddings and the answers generated for them, per client.
+    // Each client's entries are a local copy of a hash in the shared cache tier, loaded on first use.
+    private final Map<Long, ClientEntries> semanticCache = new ConcurrentHashMap<>();
     private static final double SIMILARITY_THRESHOLD = 0.98; // Very high threshold for a confident cache hit
 
+    private final CacheTier cacheTier;
+    private final ObjectMapper objectMapper;
+    // answers kept per client, the oldest are dropped once there are this many
+    private final int maxEntries;
+    private volatile long generation;
+
+    @Value("${app.cache.shared.semantic-ttl-hours:24}")
+    private long sharedTtlHours;
+
+    public CacheService(CacheTier cacheTier, ObjectMapper objectMapper,
+            @Value("${app.cache.shared.semantic-max-entries:1000}") int maxEntries) {
+        this.cacheTier = cacheTier;
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.generation = readGeneration();
+        // another node added an answer ("client:slot") or evicted a client; only loaded clients need the answer
+        cacheTier.onInvalidation(CACHE_NAME, key -> {
+            if ("*".equals(key)) {
+                evictAllLocal();
+            } else if (key.indexOf(':') > 0) {
+                String[] parts = key.split(":", 2);
+                ClientEntries entries = semanticCache.get(Long.valueOf(parts[0]));
+                if (entries != null) {
+                    appendShared(Long.valueOf(parts[0]), parts[1], entries);
+                }
+            } else {
+                evictClientLocal(Long.valueOf(key));
+            }
+        });
+    }
+
     /**
      * Tries to find a cached answer for a given query embedding.
      *
+     * @param clientId    The client the query was sent to. Answers are never shared between clients.
      * @param queryVector The embedding of the user's current query.
      * @return An Optional containing the cached AnswerDTO if a sufficiently similar query is found, otherwise empty.
      */
-    public Optional<AnswerDTO> findInCache(float[] queryVector) {
-        for (Map.Entry<float[], AnswerDTO> entry : semanticCache.entrySet()) {
-            float[] cachedVector = entry.getKey();
-            double similarity = calculateCosineSimilarity(queryVector, cachedVector);
-
-            if (similarity >= SIMILARITY_THRESHOLD) {
-                AnswerDTO cachedAnswer = entry.getValue();
-                // Mark the answer as coming from the cache for debugging/display purposes.
-                cachedAnswer.setFromCache(true); 
-                return Optional.of(cachedAnswer);
-            }
+    public Optional<AnswerDTO> findInCache(Long clientId, float[] queryVector) {
+        AnswerDTO cachedAnswer = semanticCache.computeIfAbsent(clientId, this::loadShared)
+                .findMostSimilar(queryVector, SIMILARITY_THRESHOLD);
+        if (cachedAnswer == null) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        // Mark the answer as coming from the cache for debugging/display purposes.
+        cachedAnswer.setFromCache(true);
+        return Optional.of(cachedAnswer);
     }
 
     /**
      * Adds a new entry to the semantic cache.
      *
+     * @param clientId    The client the answer was generated for.
      * @param queryVector The embedding of the user's query.
      * @param answer      The generated answer to store.
      */
-    public void addToCache(float[] queryVector, AnswerDTO answer) {
-        // To prevent the cache from growing indefinitely in a real app, you'd add an eviction policy.
-        // For this demo, we'll just keep it simple.
-        semanticCache.put(queryVector, answer);
+    public void addToCache(Long clientId, float[] queryVector, AnswerDTO answer) {
+        semanticCache.computeIfAbsent(clientId, this::loadShared).add(queryVector, answer, maxEntries);
+        String slot;
+        try {
+            byte[] entry = objectMapper.writeValueAsBytes(new SharedEntry(queryVector, answer));
+            // the hash works as a ring, so it holds at most max-entries answers however many are added
+            Duration ttl = Duration.ofHours(sharedTtlHours);
+            long sequence = cacheTier.store().incrementField(sharedKey(clientId), SEQUENCE_FIELD, ttl);
+            slot = Long.toString((sequence - 1) % maxEntries);
+            cacheTier.store().putField(sharedKey(clientId), slot, entry, ttl);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not share cached answer for client ID {}", clientId, e);
+            return;
+        }
+        // only the new answer, the other nodes fetch that one field rather than the whole hash
+        cacheTier.publishInvalidation(CACHE_NAME, clientId + ":" + slot);
+    }
+
+    // Drops every cached answer of a client, e.g. after its documents were deleted.
+    public void evictClient(Long clientId) {
+        semanticCache.remove(clientId);
+        try {
+            cacheTier.store().delete(sharedKey(clientId));
+        } catch (RuntimeException e) {
+            log.warn("Could not evict shared answers of client ID {}", clientId, e);
+        }
+        cacheTier.publishInvalidation(CACHE_NAME, clientId.toString());
     }
 
-    private double calculateCosineSimilarity(float[] vectorA, float[] vectorB) {
-        double dotProduct = 0.0;
-        double normA = 0.0;
-        double normB = 0.0;
-        for (int i = 0; i < vectorA.length; i++) {
-            dotProduct += vectorA[i] * vectorB[i];
-            normA += Math.pow(vectorA[i], 2);
-            normB += Math.pow(vectorB[i], 2);
+    // Drops this node's copy only, when another node has already evicted the shared answers.
+    public void evictClientLocal(Long clientId) {
+        semanticCache.remove(clientId);
+    }
+
+    public void evictAllLocal() {
+        generation = readGeneration();
+        semanticCache.clear();
+    }
+
+    public void evictAll() {
+        semanticCache.clear();
+        try {
+            generation = cacheTier.store().increment(generationKey());
+        } catch (RuntimeException e) {
+            log.warn("Could not clear shared answers", e);
+        }
+        cacheTier.publishInvalidation(CACHE_NAME, "*");
+    }
+
+    private ClientEntries loadShared(Long clientId) {
+        ClientEntries answers = new ClientEntries();
+        try {
+            for (Map.Entry<String, byte[]> field : cacheTier.store().getAllFields(sharedKey(clientId)).entrySet()) {
+                if (!SEQUENCE_FIELD.equals(field.getKey())) {
+                    SharedEntry entry = objectMapper.readValue(field.getValue(), SharedEntry.class);
+                    answers.add(entry.vector(), entry.answer(), maxEntries);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load shared answers of client ID {}", clientId, e);
         }
-        if (normA == 0 || normB == 0) {
-            return 0.0;
+        return answers;
+    }
+
+    private void appendShared(Long clientId, String slot, ClientEntries answers) {
+        try {
+            byte[] bytes = cacheTier.store().getField(sharedKey(clientId), slot);
+            if (bytes != null) {
+                SharedEntry entry = objectMapper.readValue(bytes, SharedEntry.class);
+                answers.add(entry.vector(), entry.answer(), maxEntries);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load shared answer of client ID {}, reloading all of them next time", clientId, e);
+            semanticCache.remove(clientId, answers);
         }
-        return dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+
+    private long readGeneration() {
+        try {
+            byte[] value = cacheTier.store().get(generationKey());
+            return value != null ? Long.parseLong(new String(value, StandardCharsets.US_ASCII)) : 0;
+        } catch (RuntimeException e) {
+            log.warn("Could not read semantic cache generation", e);
+            return 0;
+        }
+    }
+
+    private String sharedKey(Long clientId) {
+        return "docuchat:" + CACHE_NAME + ":" + generation + ":" + clientId;
+    }
+
+    private String generationKey() {
+        return "docuchat:" + CACHE_NAME + ":generation";
+    }
+
+    /**
+     * One client's cached answers. The query embeddings are normalized and stored back to back in one
+     * array, so a lookup is a single {@link VectorMath#dotAll} pass over contiguous memory. Writers append
+     * under the lock and publish a new snapshot; readers never lock and only see complete rows. Once full,
+     * the older half is dropped into a fresh array, so snapshots still being read are never changed.
+     */
+    private static final class ClientEntries {
+
+        private volatile Snapshot snapshot = new Snapshot(0, new float[0], new AnswerDTO[0], 0);
+
+        synchronized void add(float[] vector, AnswerDTO answer, int maxEntries) {
+            Snapshot current = snapshot;
+            if (current.count() > 0 && vector.length != current.dimensions()) {
+                // the embedding model changed, the old vectors can't be compared with new queries
+                current = new Snapshot(0, new float[0], new AnswerDTO[0], 0);
+            }
+            int dimensions = vector.length;
+            float[] vectors = current.vectors();
+            AnswerDTO[] answers = current.answers();
+            int count = current.count();
+            if (count >= maxEntries) {
+                int kept = maxEntries / 2;
+                int capacity = Math.max(16, maxEntries);
+                float[] newer = new float[capacity * dimensions];
+                AnswerDTO[] newerAnswers = new AnswerDTO[capacity];
+                System.arraycopy(vectors, (count - kept) * dimensions, newer, 0, kept * dimensions);
+                System.arraycopy(answers, count - kept, newerAnswers, 0, kept);
+                vectors = newer;
+                answers = newerAnswers;
+                count = kept;
+            } else if (count == answers.length) {
+                // rows past a snapshot's count are never read through it, so appending in place is safe
+                int capacity = Math.max(16, count * 2);
+                vectors = Arrays.copyOf(vectors, capacity * dimensions);
+                answers = Arrays.copyOf(answers, capacity);
+            }
+            System.arraycopy(VectorMath.normalized(vector), 0, vectors, count * dimensions, dimensions);
+            answers[count] = answer;
+            snapshot = new Snapshot(dimensions, vectors, answers, count + 1);
+        }
+
+        // the answer of the most similar cached query, if it reaches the threshold
+        AnswerDTO findMostSimilar(float[] queryVector, double threshold) {
+            Snapshot current = snapshot;
+            if (current.count() == 0 || queryVector.length != current.dimensions()) {
+                return null;
+            }
+            float[] scores = new float[current.count()];
+            VectorMath.dotAll(VectorMath.normalized(queryVector), current.vectors(), current.count(), scores);
+            int best = -1;
+            for (int i = 0; i < scores.length; i++) {
+                if (scores[i] >= threshold && (best < 0 || scores[i] > scores[best])) {
+                    best = i;
+                }
+            }
+            return best < 0 ? null : current.answers()[best];
+        }
+
+        private record Snapshot(int dimensions, float[] vectors, AnswerDTO[] answers, int count) {
+        }
+    }
+
+    // how an answer is stored in the shared tier
+    private record SharedEntry(float[] vector, AnswerDTO answer) {
     }
 }
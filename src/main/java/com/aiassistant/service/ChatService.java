@@ -2,15 +2,20 @@ package com.aiassistant.service;
 
 import com.aiassistant.adapter.ModelAdapter;
 import com.aiassistant.dto.AnswerDTO;
+import com.aiassistant.jfr.ChatRequestEvent;
+import com.aiassistant.metrics.ChatMetrics;
+import com.aiassistant.metrics.ChatMetrics.Outcome;
+import com.aiassistant.metrics.ChatMetrics.Stage;
+import com.aiassistant.model.Client;
 import com.aiassistant.model.FaqDoc;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 
@@ -23,54 +28,133 @@ public class ChatService {
     private final EmbeddingService embeddingService;
     private final ModelAdapter modelAdapter;
     private final CacheService cacheService;
+    private final FaqQuestionIndex faqQuestionIndex;
+    private final LlmRequestScheduler llmRequestScheduler;
+    private final ChatMetrics chatMetrics;
 
     public ChatService(ClientService clientService, EmbeddingService embeddingService, ModelAdapter modelAdapter,
-            CacheService cacheService) {
+            CacheService cacheService, FaqQuestionIndex faqQuestionIndex, LlmRequestScheduler llmRequestScheduler,
+            ChatMetrics chatMetrics) {
         this.clientService = clientService;
         this.embeddingService = embeddingService;
         this.modelAdapter = modelAdapter;
         this.cacheService = cacheService;
+        this.faqQuestionIndex = faqQuestionIndex;
+        this.llmRequestScheduler = llmRequestScheduler;
+        this.chatMetrics = chatMetrics;
     }
 
     @org.springframework.beans.factory.annotation.Value("${app.retrieval.default-top-k:15}")
     private int defaultTopK;
 
-    @Transactional(readOnly = true)
-    public Flux<String> processStreamingMessage(String apiKey, String message, List<String> history) {
+    /**
+     * A chat request after {@link ChatService#prepare}: the client, the timings of the stages run so far
+     * and the answer, which calls the model only once subscribed to.
+     */
+    public record PreparedChat(Client client, ChatMetrics.RequestTimer timer, Flux<String> answer) {
+    }
+
+    /**
+     * Resolves everything before the answer is streamed: client lookup, FAQ lookup, query embedding,
+     * semantic cache and vector search. The embedding call and the search don't block the calling thread,
+     * the returned Mono completes once they are done, so their timings can go in the response headers.
+     * Failures become an apology in the answer.
+     *
+     * @throws SecurityException if the api key is unknown
+     */
+    public Mono<PreparedChat> prepare(String apiKey, String message, List<String> history) {
         log.info("Processing streaming message for API key: {}", apiKey);
+        ChatMetrics.RequestTimer timer = chatMetrics.start();
+        ChatRequestEvent event = ChatRequestEvent.start();
+
+        // client lookup and vector search each run in their own read-only transaction
+        long lookupStart = System.nanoTime();
+        Optional<Client> found = clientService.findByApiKey(apiKey);
+        found.ifPresent(client -> timer.client(client.getId()));
+        timer.stage(Stage.CLIENT_LOOKUP, lookupStart);
+        if (found.isEmpty()) {
+            timer.outcome(Outcome.ERROR);
+            event.complete(null, timer);
+            throw new SecurityException("Invalid API Key provided.");
+        }
+
+        Client client = found.get();
+        return Mono.defer(() -> answer(client, message, history, timer))
+                .onErrorResume(e -> Mono.just(recover(e, timer)))
+                // the jfr event spans the whole request, it is committed once the answer has ended
+                .map(answer -> new PreparedChat(client, timer,
+                        answer.doFinally(signal -> event.complete(client.getId(), timer))));
+    }
+
+    private Mono<Flux<String>> answer(Client client, String message, List<String> history,
+            ChatMetrics.RequestTimer timer) {
+        // question typed (almost) exactly as in the faq, no need for embeddings or the llm
+        long faqStart = System.nanoTime();
+        Optional<String> directAnswer = faqQuestionIndex.findAnswer(client.getId(), message);
+        timer.stage(Stage.FAQ_LOOKUP, faqStart);
+        if (directAnswer.isPresent()) {
+            log.info("Exact FAQ match for query: '{}'", message);
+            return Mono.just(timer.stream(Outcome.FAQ, Flux.just(directAnswer.get())));
+        }
+
+        long embeddingStart = System.nanoTime();
+        return modelAdapter.generateEmbedding(message)
+                .switchIfEmpty(Mono.error(new RuntimeException("Failed to generate embedding")))
+                // cache (redis) and vector search are blocking io, so off the thread the embedding arrived on
+                .publishOn(Schedulers.boundedElastic())
+                .map(queryVector -> {
+                    timer.stage(Stage.EMBEDDING, embeddingStart);
+                    if (queryVector.length == 0) {
+                        timer.outcome(Outcome.ERROR);
+                        return Flux.just("Sorry, I couldn't process your question.");
+                    }
 
-        return Mono.justOrEmpty(clientService.findByApiKey(apiKey))
-                .switchIfEmpty(Mono.error(new SecurityException("Invalid API Key provided.")))
-                .flatMapMany(client -> {
-                    return modelAdapter.generateEmbedding(message)
-                            .switchIfEmpty(Mono.error(new RuntimeException("Failed to generate embedding")))
-                            .flatMapMany(queryVector -> {
-                                if (queryVector.length == 0) {
-                                    return Flux.just("Sorry, I couldn't process your question.");
-                                }
-
-                                // checking if we already answered this before
-                                Optional<AnswerDTO> cachedOpt = cacheService.findInCache(queryVector);
-                                if (cachedOpt.isPresent()) {
-                                    log.info("Cache hit for query: '{}'", message);
-                                    return Flux.just(cachedOpt.get().getText());
-                                }
-
-                                List<FaqDoc> relevantDocs = embeddingService.findRelevantDocs(client.getId(),
-                                        queryVector, defaultTopK);
-
-                                if (relevantDocs.isEmpty()) {
-                                    log.warn("No relevant documents found for query: '{}'. Using fallback.", message);
-                                    return modelAdapter.generateAnswerWithFallback(client.getId(), message, history);
-                                }
-
-                                return modelAdapter.generateStreamingAnswer(client.getId(), message, relevantDocs,
-                                        history);
-                            });
-                }).onErrorResume(e -> {
-                    log.error("Error processing message", e);
-                    return Flux.just(
-                            "I apologize, but I'm having trouble connecting to my brain right now. Please try again in a moment.");
+                    // checking if we already answered this before
+                    long cacheStart = System.nanoTime();
+                    Optional<AnswerDTO> cachedOpt = cacheService.findInCache(client.getId(), queryVector);
+                    timer.stage(Stage.CACHE_LOOKUP, cacheStart);
+                    if (cachedOpt.isPresent()) {
+                        log.info("Cache hit for query: '{}'", message);
+                        return timer.stream(Outcome.CACHE, Flux.just(cachedOpt.get().getText()));
+                    }
+
+                    long retrievalStart = System.nanoTime();
+                    List<FaqDoc> relevantDocs = embeddingService.findRelevantDocs(client.getId(), queryVector,
+                            defaultTopK);
+                    timer.stage(Stage.RETRIEVAL, retrievalStart);
+                    return generate(client, message, history, relevantDocs, timer);
                 });
     }
+
+    private Flux<String> generate(Client client, String message, List<String> history, List<FaqDoc> relevantDocs,
+            ChatMetrics.RequestTimer timer) {
+        Flux<String> generated;
+        if (relevantDocs.isEmpty()) {
+            log.warn("No relevant documents found for query: '{}'. Using fallback.", message);
+            generated = timer.stream(Outcome.FALLBACK, llmRequestScheduler.schedule(client.getId(),
+                    llmWeight(client), () -> modelAdapter.generateAnswerWithFallback(client.getId(), message,
+                            history)));
+        } else {
+            generated = timer.stream(Outcome.ANSWERED, llmRequestScheduler.schedule(client.getId(),
+                    llmWeight(client), () -> modelAdapter.generateStreamingAnswer(client.getId(), message,
+                            relevantDocs, history)));
+        }
+        return generated.onErrorResume(e -> recover(e, timer));
+    }
+
+    private Flux<String> recover(Throwable e, ChatMetrics.RequestTimer timer) {
+        if (e instanceof LlmOverloadedException) {
+            log.warn("Model busy, rejecting message: {}", e.getMessage());
+            timer.outcome(Outcome.SHED);
+            return Flux.just("We're answering a lot of questions right now. Please try again in a few seconds.");
+        }
+        log.error("Error processing message", e);
+        timer.outcome(Outcome.ERROR);
+        return Flux.just(
+                "I apologize, but I'm having trouble connecting to my brain right now. Please try again in a moment.");
+    }
+
+    private int llmWeight(Client client) {
+        return client.getLlmWeight() != null ? client.getLlmWeight() : 1;
+    }
 }
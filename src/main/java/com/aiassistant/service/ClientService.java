@@ -1,10 +1,10 @@
 package com.aiassistant.service;
 
 import com.aiassistant.dto.ClientSettingsDto;
+import com.aiassistant.events.ChangeEvent;
+import com.aiassistant.events.ChangeEventBus;
 import com.aiassistant.model.Client;
-import com.aiassistant.model.FaqDoc;
 import com.aiassistant.repository.ClientRepository;
-import com.aiassistant.repository.FaqDocRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,17 +15,26 @@ import java.util.UUID;
 public class ClientService {
 
     private final ClientRepository clientRepository;
-    private final FaqDocRepository faqDocRepository;
+    private final TenantPurgeService tenantPurgeService;
+    private final ChangeEventBus changeEventBus;
 
-    public ClientService(ClientRepository clientRepository, FaqDocRepository faqDocRepository) {
+    public ClientService(ClientRepository clientRepository, TenantPurgeService tenantPurgeService,
+            ChangeEventBus changeEventBus) {
         this.clientRepository = clientRepository;
-        this.faqDocRepository = faqDocRepository;
+        this.tenantPurgeService = tenantPurgeService;
+        this.changeEventBus = changeEventBus;
     }
 
+    @Transactional(readOnly = true)
     public Optional<Client> findByApiKey(String apiKey) {
         return clientRepository.findByApiKey(apiKey);
     }
 
+    @Transactional(readOnly = true)
+    public boolean exists(Long clientId) {
+        return clientRepository.existsById(clientId);
+    }
+
     @Transactional
     public Client createClient(String name) {
         Client client = new Client();
@@ -35,24 +44,12 @@ public class ClientService {
         return clientRepository.save(client);
     }
 
-    @Transactional
-    public void saveDocument(Long clientId, String filename, String content) {
-        Client client = clientRepository.findById(clientId)
-                .orElseThrow(() -> new RuntimeException("Client not found with ID: " + clientId));
-
-        // save full doc here, chunker handles splitting later
-        FaqDoc newDoc = new FaqDoc();
-        newDoc.setClient(client);
-        newDoc.setQuestion("Document: " + filename); // filename is the title
-        newDoc.setAnswer(content);
-        faqDocRepository.save(newDoc);
-    }
-
-    @Transactional
-    public long clearAllData(Long clientId) {
-        Client client = clientRepository.findById(clientId)
-                .orElseThrow(() -> new RuntimeException("Client not found with ID: " + clientId));
-        return faqDocRepository.deleteByClient(client);
+    // Starts a background purge of the client's documents, false if one is already running.
+    public boolean clearAllData(Long clientId) {
+        if (!clientRepository.existsById(clientId)) {
+            throw new RuntimeException("Client not found with ID: " + clientId);
+        }
+        return tenantPurgeService.purge(clientId);
     }
 
     @jakarta.persistence.PersistenceContext
@@ -63,6 +60,8 @@ public class ClientService {
         // delete everything and reset ids
         entityManager.createNativeQuery("TRUNCATE TABLE embeddings, faq_docs, clients RESTART IDENTITY CASCADE")
                 .executeUpdate();
+        // every node drops what it cached, once the truncate is committed
+        changeEventBus.publish(new ChangeEvent.TenantPurged(null));
     }
 
     @Transactional
@@ -81,5 +80,6 @@ public class ClientService {
         }
 
         clientRepository.save(client);
+        changeEventBus.publish(new ChangeEvent.ClientSettingsChanged(clientId));
     }
 }
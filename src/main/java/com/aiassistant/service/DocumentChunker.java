@@ -1,15 +1,25 @@
 package com.aiassistant.service;
 
+import com.aiassistant.jfr.ChunkingEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 // splits docs into chunks for rag
+// works on offsets into the source text, only the emitted chunk text is ever copied
 @Service
 public class DocumentChunker {
 
@@ -19,6 +29,10 @@ public class DocumentChunker {
     private static final int DEFAULT_OVERLAP_TOKENS = 50;
     private static final String[] SEPARATORS = { "\n\n", "\n", ". ", " ", "" };
 
+    // regex for questions
+    private static final Pattern QA_PATTERN = Pattern.compile("^(Q:|Question:|\\d+\\.|\\*\\*Q:|\\*\\*Question:)",
+            Pattern.MULTILINE);
+
     // 1 token is about 4 chars
     private static final int CHARS_PER_TOKEN = 4;
 
@@ -31,168 +45,400 @@ public class DocumentChunker {
     public List<DocumentChunk> chunkDocument(String text, Long sourceDocId, int maxTokens, int overlapTokens) {
         log.info("Chunking document (ID: {}) with maxTokens={}, overlap={}", sourceDocId, maxTokens, overlapTokens);
 
-        List<DocumentChunk> allChunks = new ArrayList<>();
+        List<DocumentChunk> allChunks;
+        try (Stream<DocumentChunk> chunks = streamChunks(text, sourceDocId, maxTokens, overlapTokens)) {
+            allChunks = chunks.collect(Collectors.toList());
+        }
 
-        // try to split by q&a first
-        List<String> sections = splitByQAPattern(text);
+        log.info("Created {} chunks from document ID: {}", allChunks.size(), sourceDocId);
+        return allChunks;
+    }
 
-        log.debug("Split document into {} Q&A sections", sections.size());
+    public Stream<DocumentChunk> streamChunks(CharSequence text, Long sourceDocId) {
+        return streamChunks(text, sourceDocId, DEFAULT_MAX_TOKENS, DEFAULT_OVERLAP_TOKENS);
+    }
 
-        int chunkIndex = 0;
-        for (int sectionIdx = 0; sectionIdx < sections.size(); sectionIdx++) {
-            String section = sections.get(sectionIdx);
+    /**
+     * Lazily chunks a document. Produces exactly the same chunks as {@link #chunkDocument(String, Long)},
+     * but sections and sub-chunks are located by offsets and each chunk is only materialized when the
+     * stream reaches it. A {@link ChunkingEvent} is recorded when the stream is closed, with the chunks
+     * produced until then; its duration includes the time the caller spent on each chunk.
+     *
+     * @param text The document text. Can be a String or a view such as a memory-mapped CharBuffer.
+     * @return A sequential stream of chunks in document order.
+     */
+    public Stream<DocumentChunk> streamChunks(CharSequence text, Long sourceDocId, int maxTokens, int overlapTokens) {
+        int maxChars = maxTokens * CHARS_PER_TOKEN;
+        int overlapChars = overlapTokens * CHARS_PER_TOKEN;
+        int[] chunkIndex = { 0 };
+        ChunkingEvent event = ChunkingEvent.start();
+
+        return toStream(new SectionIterator(text))
+                .flatMap(section -> toStream(splitSection(text, section, maxTokens, maxChars, overlapChars))
+                        .map(chunkText -> new DocumentChunk(
+                                chunkText,
+                                sourceDocId,
+                                chunkIndex[0]++,
+                                "Section " + (section.index() + 1))))
+                .onClose(() -> event.complete(sourceDocId, text.length(), chunkIndex[0], maxTokens));
+    }
 
-            // if its small enough keep it
-            if (estimateTokens(section) <= maxTokens) {
-                allChunks.add(new DocumentChunk(
-                        section,
-                        sourceDocId,
-                        chunkIndex++,
-                        "Section " + (sectionIdx + 1)));
-            } else {
-                // too big so split it recursively
-                List<String> subChunks = recursiveSplit(section, maxTokens, overlapTokens);
-                for (String subChunk : subChunks) {
-                    allChunks.add(new DocumentChunk(
-                            subChunk,
-                            sourceDocId,
-                            chunkIndex++,
-                            "Section " + (sectionIdx + 1)));
-                }
+    /**
+     * Chunks text read from a Reader. The text is spooled to a temp file and mapped back in,
+     * so heap use stays around the chunk size no matter how big the document is.
+     * The returned stream must be closed to release the temp file.
+     */
+    public Stream<DocumentChunk> streamChunks(Reader reader, Long sourceDocId) throws IOException {
+        TextSpool spool = new TextSpool();
+        try {
+            spool.append(reader);
+            return streamChunks(spool.asCharSequence(), sourceDocId).onClose(spool::close);
+        } catch (IOException | RuntimeException e) {
+            spool.close();
+            throw e;
+        }
+    }
+
+    private Iterator<String> splitSection(CharSequence text, Section section, int maxTokens, int maxChars,
+            int overlapChars) {
+        int length = section.end() - section.start();
+
+        // if its small enough keep it
+        if (estimateTokens(length) <= maxTokens || length <= maxChars) {
+            return List.of(slice(text, section.start(), section.end())).iterator();
+        }
+
+        // too big so split it, try separators big to small
+        for (String separator : SEPARATORS) {
+            if (separator.isEmpty()) {
+                break;
+            }
+            if (splitsIntoParts(text, section.start(), section.end(), separator)) {
+                return new MergingIterator(text, section.start(), section.end(), separator, maxChars, overlapChars);
             }
         }
 
-        log.info("Created {} chunks from document ID: {}", allChunks.size(), sourceDocId);
-        return allChunks;
+        // last resort split by chars
+        return new CharacterCountIterator(text, section.start(), section.end(), maxChars, overlapChars);
     }
 
-    // split by question markers
-    private List<String> splitByQAPattern(String text) {
-        List<String> sections = new ArrayList<>();
-
-        // regex for questions
-        Pattern pattern = Pattern.compile("^(Q:|Question:|\\d+\\.|\\*\\*Q:|\\*\\*Question:)", Pattern.MULTILINE);
-        Matcher matcher = pattern.matcher(text);
+    // same answer as text.split(separator).length > 1, i.e. trailing empty parts don't count
+    private static boolean splitsIntoParts(CharSequence text, int start, int end, String separator) {
+        int first = indexOf(text, separator, start, end);
+        if (first < 0) {
+            return false;
+        }
+        int pos = first + separator.length();
+        while (pos < end) {
+            if (!matchesAt(text, separator, pos, end)) {
+                return true;
+            }
+            pos += separator.length();
+        }
+        return false;
+    }
 
-        List<Integer> splitPoints = new ArrayList<>();
-        splitPoints.add(0); // start of file
+    // estimate tokens
+    private static int estimateTokens(int length) {
+        return length / CHARS_PER_TOKEN;
+    }
 
-        while (matcher.find()) {
-            splitPoints.add(matcher.start());
+    private static int indexOf(CharSequence text, String separator, int from, int end) {
+        if (text instanceof String s) {
+            int idx = s.indexOf(separator, from);
+            return idx >= 0 && idx + separator.length() <= end ? idx : -1;
+        }
+        char first = separator.charAt(0);
+        for (int i = from, last = end - separator.length(); i <= last; i++) {
+            if (text.charAt(i) == first && matchesAt(text, separator, i, end)) {
+                return i;
+            }
         }
+        return -1;
+    }
 
-        // no questions found so treat as one block
-        if (splitPoints.size() == 1) {
-            sections.add(text);
-            return sections;
+    private static boolean matchesAt(CharSequence text, String separator, int pos, int end) {
+        if (pos + separator.length() > end) {
+            return false;
         }
+        for (int i = 0; i < separator.length(); i++) {
+            if (text.charAt(pos + i) != separator.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        // split at markers
-        for (int i = 0; i < splitPoints.size(); i++) {
-            int start = splitPoints.get(i);
-            int end = (i + 1 < splitPoints.size()) ? splitPoints.get(i + 1) : text.length();
+    private static String slice(CharSequence text, int from, int to) {
+        return text.subSequence(from, to).toString();
+    }
 
-            String section = text.substring(start, end).trim();
-            if (!section.isEmpty()) {
-                sections.add(section);
-            }
+    // same as slice(...).trim() without copying the whitespace first
+    private static String trimmedSlice(CharSequence text, int from, int to) {
+        while (from < to && text.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && text.charAt(to - 1) <= ' ') {
+            to--;
         }
+        return slice(text, from, to);
+    }
 
-        return sections;
+    private static <T> Stream<T> toStream(Iterator<T> iterator) {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
     }
 
-    // recursive split using separators
-    private List<String> recursiveSplit(String text, int maxTokens, int overlapTokens) {
-        List<String> chunks = new ArrayList<>();
+    private record Section(int start, int end, int index) {
+    }
 
-        int maxChars = maxTokens * CHARS_PER_TOKEN;
-        int overlapChars = overlapTokens * CHARS_PER_TOKEN;
+    // split by question markers, sections are trimmed and empty ones skipped
+    private static final class SectionIterator implements Iterator<Section> {
+        private final CharSequence text;
+        private final Matcher matcher;
+        private int previousSplit = 0;
+        private boolean foundMarker = false;
+        private boolean done = false;
+        private int index = 0;
+        private Section next;
+
+        SectionIterator(CharSequence text) {
+            this.text = text;
+            this.matcher = QA_PATTERN.matcher(text);
+        }
 
-        // fits in one chunk
-        if (text.length() <= maxChars) {
-            chunks.add(text);
-            return chunks;
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
         }
 
-        // try separators big to small
-        for (String separator : SEPARATORS) {
-            if (separator.isEmpty()) {
-                // last resort split by chars
-                chunks.addAll(splitByCharacterCount(text, maxChars, overlapChars));
-                return chunks;
+        @Override
+        public Section next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
+            Section section = next;
+            next = null;
+            return section;
+        }
 
-            String[] parts = text.split(Pattern.quote(separator));
+        private Section advance() {
+            while (!done) {
+                int from = previousSplit;
+                int to;
+                if (matcher.find()) {
+                    foundMarker = true;
+                    to = matcher.start();
+                    previousSplit = to;
+                } else {
+                    done = true;
+                    to = text.length();
+                    if (!foundMarker) {
+                        // no questions found so treat as one block
+                        return new Section(0, to, index++);
+                    }
+                }
 
-            if (parts.length > 1) {
-                // found separator so merge parts
-                chunks.addAll(mergeParts(parts, separator, maxChars, overlapChars));
-                return chunks;
+                while (from < to && text.charAt(from) <= ' ') {
+                    from++;
+                }
+                while (to > from && text.charAt(to - 1) <= ' ') {
+                    to--;
+                }
+                if (from < to) {
+                    return new Section(from, to, index++);
+                }
             }
+            return null;
         }
-
-        // fallback to char split
-        chunks.addAll(splitByCharacterCount(text, maxChars, overlapChars));
-        return chunks;
     }
 
-    // merge parts into chunks
-    private List<String> mergeParts(String[] parts, String separator, int maxChars, int overlapChars) {
-        List<String> chunks = new ArrayList<>();
-        StringBuilder currentChunk = new StringBuilder();
+    // merges separator-delimited parts into chunks of at most maxChars, with overlap.
+    // the current chunk is always one contiguous range of the source, plus the separator
+    // that String.split would have glued onto the very last part
+    private static final class MergingIterator implements Iterator<String> {
+        private final CharSequence text;
+        private final int end;
+        private final String separator;
+        private final int maxChars;
+        private final int overlapChars;
+
+        private int scan;
+        private int pendingEmptyParts = 0;
+        private boolean partsDone = false;
+        private int partFrom;
+        private int partTo;
+        private boolean lastPart;
+
+        private int chunkStart;
+        private int chunkEnd;
+        private boolean chunkHasTail = false;
+        private boolean finished = false;
+        private String next;
+
+        MergingIterator(CharSequence text, int start, int end, String separator, int maxChars, int overlapChars) {
+            this.text = text;
+            this.end = end;
+            this.separator = separator;
+            this.maxChars = maxChars;
+            this.overlapChars = overlapChars;
+            this.scan = start;
+            this.chunkStart = start;
+            this.chunkEnd = start;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                next = advance();
+            }
+            return next != null;
+        }
 
-        for (String part : parts) {
-            String withSeparator = part + separator;
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String chunk = next;
+            next = null;
+            return chunk;
+        }
 
-            // if too big save and start new
-            if (currentChunk.length() + withSeparator.length() > maxChars && currentChunk.length() > 0) {
-                chunks.add(currentChunk.toString().trim());
+        private String advance() {
+            while (nextPart()) {
+                int withSeparator = partTo - partFrom + separator.length();
+                String flushed = null;
+
+                // if too big save and start new
+                if (chunkLength() + withSeparator > maxChars && chunkLength() > 0) {
+                    flushed = trimmedSlice(text, chunkStart, chunkEnd);
+
+                    // start new chunk with overlap
+                    if (chunkLength() > overlapChars) {
+                        chunkStart = chunkEnd - overlapChars;
+                    }
+                }
+
+                // parts are back to back in the source, so appending just moves the end
+                if (lastPart) {
+                    chunkEnd = partTo;
+                    chunkHasTail = true;
+                } else {
+                    chunkEnd = partTo + separator.length();
+                }
 
-                // start new chunk with overlap
-                String overlap = getOverlap(currentChunk.toString(), overlapChars);
-                currentChunk = new StringBuilder(overlap);
+                if (flushed != null) {
+                    return flushed;
+                }
             }
 
-            currentChunk.append(withSeparator);
+            // add the last bit
+            finished = true;
+            if (chunkLength() > 0) {
+                if (chunkHasTail) {
+                    return new StringBuilder(chunkEnd - chunkStart + separator.length())
+                            .append(text, chunkStart, chunkEnd)
+                            .append(separator)
+                            .toString()
+                            .trim();
+                }
+                return trimmedSlice(text, chunkStart, chunkEnd);
+            }
+            return null;
         }
 
-        // add the last bit
-        if (currentChunk.length() > 0) {
-            chunks.add(currentChunk.toString().trim());
+        private int chunkLength() {
+            return chunkEnd - chunkStart + (chunkHasTail ? separator.length() : 0);
         }
 
-        return chunks;
-    }
+        // walks the parts String.split would return, including the trailing-empties rule
+        private boolean nextPart() {
+            if (pendingEmptyParts > 0) {
+                pendingEmptyParts--;
+                partFrom = scan;
+                partTo = scan;
+                scan += separator.length();
+                return true;
+            }
+            if (partsDone || scan >= end) {
+                partsDone = true;
+                return false;
+            }
+            if (matchesAt(text, separator, scan, end)) {
+                // a run of separators gives empty parts, unless it runs to the end
+                int runEnd = scan;
+                int count = 0;
+                while (runEnd < end && matchesAt(text, separator, runEnd, end)) {
+                    runEnd += separator.length();
+                    count++;
+                }
+                if (runEnd >= end) {
+                    partsDone = true;
+                    return false;
+                }
+                pendingEmptyParts = count - 1;
+                partFrom = scan;
+                partTo = scan;
+                scan += separator.length();
+                return true;
+            }
 
-    // get overlap from end
-    private String getOverlap(String text, int overlapChars) {
-        if (text.length() <= overlapChars) {
-            return text;
+            int found = indexOf(text, separator, scan, end);
+            partFrom = scan;
+            if (found < 0) {
+                partTo = end;
+                scan = end;
+                lastPart = true;
+                partsDone = true;
+            } else {
+                partTo = found;
+                scan = found + separator.length();
+            }
+            return true;
         }
-        return text.substring(text.length() - overlapChars);
     }
 
     // split by char count
-    private List<String> splitByCharacterCount(String text, int maxChars, int overlapChars) {
-        List<String> chunks = new ArrayList<>();
+    private static final class CharacterCountIterator implements Iterator<String> {
+        private final CharSequence text;
+        private final int offset;
+        private final int length;
+        private final int maxChars;
+        private final int overlapChars;
+        private int start = 0;
+        private boolean done = false;
+
+        CharacterCountIterator(CharSequence text, int from, int to, int maxChars, int overlapChars) {
+            this.text = text;
+            this.offset = from;
+            this.length = to - from;
+            this.maxChars = maxChars;
+            this.overlapChars = overlapChars;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !done && start < length;
+        }
 
-        int start = 0;
-        while (start < text.length()) {
-            int end = Math.min(start + maxChars, text.length());
-            chunks.add(text.substring(start, end));
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int end = Math.min(start + maxChars, length);
+            String chunk = slice(text, offset + start, offset + end);
             start = end - overlapChars; // move back for overlap
 
-            if (start >= text.length() - overlapChars) {
-                break; // skip tiny chunks
+            if (start >= length - overlapChars) {
+                done = true; // skip tiny chunks
             }
+            return chunk;
         }
-
-        return chunks;
-    }
-
-    // estimate tokens
-    private int estimateTokens(String text) {
-        return text.length() / CHARS_PER_TOKEN;
     }
 
     // chunk with metadata
@@ -1,10 +1,15 @@
 package com.aiassistant.service;
 
 import com.aiassistant.adapter.ModelAdapter;
+import com.aiassistant.config.DataSourceWorkload;
+import com.aiassistant.jfr.VectorSearchEvent;
+import com.aiassistant.metrics.IndexingMetrics;
 import com.aiassistant.model.Embedding;
 import com.aiassistant.model.FaqDoc;
 import com.aiassistant.repository.EmbeddingRepository;
+import com.aiassistant.repository.EmbeddingVectorRepository;
 import com.aiassistant.repository.FaqDocRepository;
+import com.aiassistant.repository.VectorQuantization;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -19,7 +24,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,127 +40,144 @@ public class EmbeddingService {
     private final ModelAdapter modelAdapter;
     private final FaqDocRepository faqDocRepository;
     private final EmbeddingRepository embeddingRepository;
+    private final EmbeddingVectorRepository embeddingVectorRepository;
     private final ObjectMapper objectMapper;
     private final DocumentChunker documentChunker;
+    private final TenantPurgeService tenantPurgeService;
+    private final IndexingTaskQueue indexingTaskQueue;
+    private final VectorIndexManager vectorIndexManager;
+    private final IndexingMetrics indexingMetrics;
+    private final FaqDocBatchWriter batchWriter;
+    private final IndexingLeases indexingLeases;
 
     public EmbeddingService(ModelAdapter modelAdapter, FaqDocRepository faqDocRepository,
-            EmbeddingRepository embeddingRepository, ObjectMapper objectMapper, DocumentChunker documentChunker) {
+            EmbeddingRepository embeddingRepository, EmbeddingVectorRepository embeddingVectorRepository,
+            ObjectMapper objectMapper, DocumentChunker documentChunker,
+            TenantPurgeService tenantPurgeService, IndexingTaskQueue indexingTaskQueue,
+            VectorIndexManager vectorIndexManager, IndexingMetrics indexingMetrics, FaqDocBatchWriter batchWriter,
+            IndexingLeases indexingLeases) {
         this.modelAdapter = modelAdapter;
         this.faqDocRepository = faqDocRepository;
         this.embeddingRepository = embeddingRepository;
+        this.embeddingVectorRepository = embeddingVectorRepository;
         this.objectMapper = objectMapper;
         this.documentChunker = documentChunker;
+        this.tenantPurgeService = tenantPurgeService;
+        this.indexingTaskQueue = indexingTaskQueue;
+        this.vectorIndexManager = vectorIndexManager;
+        this.indexingMetrics = indexingMetrics;
+        this.batchWriter = batchWriter;
+        this.indexingLeases = indexingLeases;
     }
 
     @org.springframework.beans.factory.annotation.Value("${app.retrieval.max-search-k:10}")
     private int maxSearchK;
 
+    @org.springframework.beans.factory.annotation.Value("${app.indexing.docs-per-task:50}")
+    private int docsPerTask;
+
+    @org.springframework.beans.factory.annotation.Value("${app.import.max-pending-batches:4}")
+    private int maxPendingBatches;
+
     @org.springframework.beans.factory.annotation.Value("${app.demo.cleanup-enabled:false}")
     private boolean cleanupEnabled;
 
     @org.springframework.beans.factory.annotation.Value("${app.demo.client-id:1}")
     private Long demoClientId;
 
-    @Transactional
+    /**
+     * Queues the client's unindexed documents as indexing tasks. The work is done by the
+     * {@link IndexingWorker}s of all nodes, not just the one that received the request.
+     */
     public Mono<Void> indexClientDocs(Long clientId) {
-        return Mono.fromRunnable(() -> log.info("Starting incremental indexing for client ID: {}", clientId))
+        return Mono.fromCallable(() -> DataSourceWorkload.bulk(() -> indexingTaskQueue.enqueue(clientId, docsPerTask)))
                 .subscribeOn(reactor.core.scheduler.Schedulers.boundedElastic())
-                .then(Mono.fromCallable(() -> faqDocRepository.findByClientId(clientId))
-                        .subscribeOn(reactor.core.scheduler.Schedulers.boundedElastic())
-                        .flatMapMany(allDocuments -> {
-                            if (allDocuments.isEmpty()) {
-                                log.warn("No documents found to index for client ID: {}", clientId);
-                                return Flux.empty();
-                            }
-
-                            // skip docs that are already indexed
-                            List<FaqDoc> docsToIndex = allDocuments.stream()
-                                    .filter(doc -> !embeddingRepository.isDocumentIndexed(doc.getId()))
-                                    .collect(Collectors.toList());
-
-                            if (docsToIndex.isEmpty()) {
-                                log.info("All documents are already indexed for client ID: {}", clientId);
-                                return Flux.empty();
-                            }
-
-                            log.info("Found {} new or unindexed documents to index.", docsToIndex.size());
-
-                            // removing old broken embeddings just in case
-                            docsToIndex.forEach(doc -> {
-                                List<Embedding> old = embeddingRepository.findByDocId(doc.getId());
-                                if (!old.isEmpty()) {
-                                    log.debug("Removing broken embedding for doc ID: {}", doc.getId());
-                                    embeddingRepository.deleteAll(old);
+                .doOnNext(tasks -> {
+                    if (tasks == 0) {
+                        log.info("No new documents to index for client ID: {}", clientId);
+                    } else {
+                        log.info("Queued {} indexing tasks for client ID: {}", tasks, clientId);
+                    }
+                })
+                .then();
+    }
+
+    /**
+     * Chunks, embeds and stores the given documents. The documents must already be persisted
+     * and must not have embeddings yet (e.g. rows that were just inserted by an import).
+     */
+    public Mono<Void> indexDocuments(List<FaqDoc> docsToIndex) {
+        // 1. split docs into smaller chunks
+        return Flux.fromIterable(docsToIndex)
+                .flatMap(doc -> {
+                    List<DocumentChunker.DocumentChunk> chunks = documentChunker.chunkDocument(
+                            doc.getAnswer(),
+                            doc.getId());
+                    return Flux.fromIterable(chunks)
+                            .map(chunk -> new ChunkContext(chunk, doc));
+                })
+                // 2. group them to save api calls
+                .buffer(50)
+                .flatMap(batch -> {
+                    List<String> texts = batch.stream()
+                            .map(ctx -> ctx.chunk().getText())
+                            .collect(Collectors.toList());
+
+                    log.info("Processing batch of {} chunks...", texts.size());
+
+                    // 3. get vectors from ai
+                    long embeddingStart = System.nanoTime();
+                    return modelAdapter.generateEmbeddings(texts)
+                            .flatMapMany(vectors -> {
+                                indexingMetrics.embeddingBatch(embeddingStart);
+                                if (vectors.size() != batch.size()) {
+                                    log.error("Mismatch in embedding count! Sent {}, received {}",
+                                            batch.size(), vectors.size());
+                                    return Flux.error(
+                                            new RuntimeException("Embedding count mismatch"));
                                 }
+
+                                // 4. save vectors to db
+                                return Flux.range(0, batch.size())
+                                        .flatMap(i -> {
+                                            ChunkContext ctx = batch.get(i);
+                                            float[] vector = vectors.get(i);
+                                            return saveEmbedding(ctx.doc(), vector);
+                                        })
+                                        .doOnComplete(() -> indexingMetrics.chunksStored(batch.size()));
                             });
+                }, 5) // dont overwhelm the server
+                .then(Mono.fromRunnable(() -> indexingMetrics.documentsIndexed(docsToIndex.size())));
+    }
 
-                            // 1. split docs into smaller chunks
-                            return Flux.fromIterable(docsToIndex)
-                                    .flatMap(doc -> {
-                                        List<DocumentChunker.DocumentChunk> chunks = documentChunker.chunkDocument(
-                                                doc.getAnswer(),
-                                                doc.getId());
-                                        return Flux.fromIterable(chunks)
-                                                .map(chunk -> new ChunkContext(chunk, doc));
-                                    })
-                                    // 2. group them to save api calls
-                                    .buffer(50)
-                                    .flatMap(batch -> {
-                                        List<String> texts = batch.stream()
-                                                .map(ctx -> ctx.chunk().getText())
-                                                .collect(Collectors.toList());
-
-                                        log.info("Processing batch of {} chunks...", texts.size());
-
-                                        // 3. get vectors from ai
-                                        return modelAdapter.generateEmbeddings(texts)
-                                                .flatMapMany(vectors -> {
-                                                    if (vectors.size() != batch.size()) {
-                                                        log.error("Mismatch in embedding count! Sent {}, received {}",
-                                                                batch.size(), vectors.size());
-                                                        return Flux.error(
-                                                                new RuntimeException("Embedding count mismatch"));
-                                                    }
-
-                                                    // 4. save vectors to db
-                                                    return Flux.range(0, batch.size())
-                                                            .flatMap(i -> {
-                                                                ChunkContext ctx = batch.get(i);
-                                                                float[] vector = vectors.get(i);
-                                                                return saveEmbedding(ctx.doc(), vector);
-                                                            });
-                                                });
-                                    }, 5); // dont overwhelm the server
-                        })
-                        .then());
+    public IndexingPipeline openPipeline(java.util.function.Consumer<List<FaqDoc>> onBatchIndexed) {
+        return new IndexingPipeline(this, batchWriter, indexingLeases, onBatchIndexed, maxPendingBatches);
     }
 
     private Mono<Embedding> saveEmbedding(FaqDoc doc, float[] vector) {
-        return Mono.fromCallable(() -> {
+        // runs on boundedElastic, so the bulk pool is chosen here rather than by the caller
+        return Mono.fromCallable(() -> DataSourceWorkload.bulk(() -> {
             try {
                 Embedding embedding = new Embedding();
                 embedding.setDoc(doc);
+                embedding.setClientId(doc.getClient().getId());
                 log.info("Saving embedding for Doc ID: {}", doc.getId());
                 // keeping json for backup
                 embedding.setVectorData(objectMapper.writeValueAsString(vector));
-                // this is for pgvector search
-                embedding.setVectorDataPgvector(vectorToPgVectorString(vector));
 
                 Embedding savedEmbedding = embeddingRepository.save(embedding);
 
-                // need native sql for vector update
-                if (embedding.getVectorDataPgvector() != null) {
-                    embeddingRepository.updatePgVector(
-                            savedEmbedding.getId(),
-                            embedding.getVectorDataPgvector());
-                }
+                // hibernate can't map the vector column, it is written in binary over jdbc
+                embeddingVectorRepository.updateVector(savedEmbedding.getId(), savedEmbedding.getClientId(), vector);
                 return savedEmbedding;
             } catch (JsonProcessingException e) {
                 throw new RuntimeException("Error serializing vector", e);
             }
-        }).subscribeOn(reactor.core.scheduler.Schedulers.boundedElastic());
+        })).subscribeOn(reactor.core.scheduler.Schedulers.boundedElastic());
     }
 
+    // read-only so it can be served by the replica, see DataSourceConfig
+    @Transactional(readOnly = true)
     public List<FaqDoc> findRelevantDocs(Long clientId, float[] queryVector, int k) {
         log.info("Finding relevant docs for client ID: {} using pgvector", clientId);
 
@@ -163,23 +190,33 @@ public class EmbeddingService {
         final int MAX_K = Math.min(k, maxSearchK);
 
         long startTime = System.currentTimeMillis();
+        VectorSearchEvent event = VectorSearchEvent.start();
 
-        // pgvector is way faster than doing it in java
-        String queryVectorString = vectorToPgVectorString(queryVector);
-        List<Embedding> similarEmbeddings = embeddingRepository.findTopKSimilarByClientId(
-                clientId,
-                queryVectorString,
-                MAX_K);
+        // probes / ef_search as tuned for the current index, for this transaction only
+        vectorIndexManager.applySearchSettings();
 
-        long searchTime = System.currentTimeMillis() - startTime;
-        log.info("pgvector search completed in {}ms, found {} chunks", searchTime, similarEmbeddings.size());
+        // pgvector is way faster than doing it in java, the query vector is sent in binary
+        // with a quantized index the candidates are re-ranked by the full-precision vectors in the same query
+        VectorQuantization quantization = vectorIndexManager.searchQuantization();
+        List<Long> nearestDocIds = embeddingVectorRepository.findNearestDocIds(clientId, queryVector, MAX_K,
+                quantization, vectorIndexManager.rerankCandidates());
 
-        // get the actual docs from embeddings
-        List<FaqDoc> results = similarEmbeddings.stream()
-                .map(Embedding::getDoc)
-                .distinct()
+        long searchTime = System.currentTimeMillis() - startTime;
+        vectorIndexManager.recordSearch(searchTime);
+        log.info("pgvector search completed in {}ms, found {} chunks", searchTime, nearestDocIds.size());
+
+        // several chunks can come from the same doc, load each doc once and keep the closest-first order
+        Set<Long> docIds = new LinkedHashSet<>(nearestDocIds);
+        Map<Long, FaqDoc> docsById = faqDocRepository.findAllById(docIds).stream()
+                .collect(Collectors.toMap(FaqDoc::getId, Function.identity()));
+        List<FaqDoc> results = docIds.stream()
+                .map(docsById::get)
+                .filter(Objects::nonNull)
                 .limit(MAX_K)
                 .collect(Collectors.toList());
+        event.complete(clientId, MAX_K, quantization.key(),
+                quantization.reranks() ? vectorIndexManager.rerankCandidates() : 0, nearestDocIds.size(),
+                results.size());
 
         log.info("Returning {} relevant documents", results.size());
 
@@ -187,38 +224,15 @@ public class EmbeddingService {
     }
 
     @Scheduled(fixedRate = 3600000) // 1 hour
-    @Transactional
     public void cleanupDemoData() {
         if (!cleanupEnabled) {
             return;
         }
         log.info("Running scheduled cleanup of demo data for client ID: {}", demoClientId);
-
-        List<Embedding> embeddings = embeddingRepository.findByDocClientId(demoClientId);
-        if (!embeddings.isEmpty()) {
-            embeddingRepository.deleteAll(embeddings);
-            log.info("Deleted {} embeddings.", embeddings.size());
-        }
-
-        List<FaqDoc> docs = faqDocRepository.findByClientId(demoClientId);
-        if (!docs.isEmpty()) {
-            faqDocRepository.deleteAll(docs);
-            log.info("Deleted {} documents.", docs.size());
-        }
-
-        log.info("Demo data cleanup finished.");
-    }
-
-    // helper to format vector for postgres
-    private String vectorToPgVectorString(float[] vector) {
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < vector.length; i++) {
-            if (i > 0)
-                sb.append(",");
-            sb.append(vector[i]);
+        // set-based deletes in the background, nothing is loaded into memory
+        if (!tenantPurgeService.purge(demoClientId)) {
+            log.info("Demo data cleanup skipped, a purge is already running.");
         }
-        sb.append("]");
-        return sb.toString();
     }
 
     private record ChunkContext(DocumentChunker.DocumentChunk chunk, FaqDoc doc) {
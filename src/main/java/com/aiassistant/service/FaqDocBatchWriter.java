@@ -0,0 +1,96 @@
+package com.aiassistant.service;
+
+import com.aiassistant.config.DataSourceWorkload;
+import com.aiassistant.dto.FaqEntry;
+import com.aiassistant.model.Client;
+import com.aiassistant.model.FaqDoc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes faq_docs rows with a single JDBC batch insert per call, in its own transaction.
+ * Hibernate can't batch these because of the IDENTITY ids.
+ */
+@Service
+public class FaqDocBatchWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(FaqDocBatchWriter.class);
+
+    private static final String INSERT_SQL = "INSERT INTO faq_docs (client_id, question, answer, created_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IndexingTaskQueue indexingTaskQueue;
+
+    public FaqDocBatchWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            IndexingTaskQueue indexingTaskQueue) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.indexingTaskQueue = indexingTaskQueue;
+    }
+
+    /**
+     * Inserts the rows and returns them as detached FaqDocs with their generated IDs, ready to be passed
+     * to the embedding pipeline. In the same transaction the rows are recorded as an indexing task running
+     * under {@code owner}, so POST /index doesn't queue them again while the pipeline embeds them.
+     */
+    public IndexingPipeline.Batch insert(Client client, List<FaqEntry> rows, String owner, Duration lease) {
+        // from the bulk pool, so large imports do not hold up chat requests
+        IndexingPipeline.Batch batch = DataSourceWorkload.bulk(() -> transactionTemplate.execute(status -> {
+            indexingTaskQueue.lockClient(client.getId());
+            List<FaqDoc> docs = insertRows(client, rows);
+            long lowest = docs.stream().mapToLong(FaqDoc::getId).min().orElseThrow();
+            long highest = docs.stream().mapToLong(FaqDoc::getId).max().orElseThrow();
+            return new IndexingPipeline.Batch(
+                    indexingTaskQueue.addRunning(client.getId(), lowest - 1, highest, owner, lease), docs);
+        }));
+        log.debug("Inserted batch of {} rows for client ID: {} as indexing task {}", rows.size(), client.getId(),
+                batch.task().id());
+        return batch;
+    }
+
+    // joins the caller's transaction
+    private List<FaqDoc> insertRows(Client client, List<FaqEntry> rows) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<FaqDoc> inserted = new ArrayList<>(rows.size());
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, new String[] { "id" })) {
+                for (FaqEntry row : rows) {
+                    ps.setLong(1, client.getId());
+                    ps.setString(2, row.getQuestion());
+                    ps.setString(3, row.getAnswer());
+                    ps.setTimestamp(4, now);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                // keys come back in insert order
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next()) {
+                        FaqEntry row = rows.get(i++);
+                        FaqDoc doc = new FaqDoc();
+                        doc.setId(keys.getLong(1));
+                        doc.setClient(client);
+                        doc.setQuestion(row.getQuestion());
+                        doc.setAnswer(row.getAnswer());
+                        inserted.add(doc);
+                    }
+                }
+            }
+            return inserted;
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package com.aiassistant.service;
+
+import com.aiassistant.dto.FaqImportResponse;
+
+// Thrown when an import fails part way, carrying what was committed before the failure.
+public class FaqImportException extends RuntimeException {
+
+    private final FaqImportResponse partial;
+
+    public FaqImportException(FaqImportResponse partial, Throwable cause) {
+        super(partial.getMessage(), cause);
+        this.partial = partial;
+    }
+
+    public FaqImportResponse getPartial() {
+        return partial;
+    }
+}
@@ -0,0 +1,120 @@
+package com.aiassistant.service;
+
+import com.aiassistant.dto.FaqEntry;
+import com.aiassistant.dto.FaqImportResponse;
+import com.aiassistant.events.ChangeEvent;
+import com.aiassistant.events.ChangeEventBus;
+import com.aiassistant.model.Client;
+import com.aiassistant.repository.ClientRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Bulk import of structured question/answer pairs.
+ * Rows are written with JDBC batch inserts (one transaction per batch) and every committed
+ * batch is handed straight to the embedding pipeline, so no separate /index call is needed.
+ */
+@Service
+public class FaqImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(FaqImportService.class);
+
+    private final ClientRepository clientRepository;
+    private final EmbeddingService embeddingService;
+    private final ChangeEventBus changeEventBus;
+    private final ObjectMapper objectMapper;
+
+    public FaqImportService(ClientRepository clientRepository, EmbeddingService embeddingService,
+            ChangeEventBus changeEventBus, ObjectMapper objectMapper) {
+        this.clientRepository = clientRepository;
+        this.embeddingService = embeddingService;
+        this.changeEventBus = changeEventBus;
+        this.objectMapper = objectMapper;
+    }
+
+    @org.springframework.beans.factory.annotation.Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    public FaqImportResponse importEntries(Long clientId, List<FaqEntry> entries) {
+        return importEntries(clientId, entries == null ? List.<FaqEntry>of().iterator() : entries.iterator());
+    }
+
+    // one json object per line, read lazily so the whole body is never held in memory
+    public FaqImportResponse importNdjson(Long clientId, InputStream body) throws IOException {
+        Iterator<FaqEntry> entries = objectMapper.readerFor(FaqEntry.class).readValues(body);
+        return importEntries(clientId, entries);
+    }
+
+    private FaqImportResponse importEntries(Long clientId, Iterator<FaqEntry> entries) {
+        Client client = clientRepository.findById(clientId)
+                .orElseThrow(() -> new RuntimeException("Client not found with ID: " + clientId));
+
+        // committed batches are embedded one after another while later batches are still being inserted
+        IndexingPipeline pipeline = embeddingService.openPipeline(
+                docs -> log.debug("Indexed {} imported FAQ entries for client ID: {}", docs.size(), clientId));
+
+        int imported = 0;
+        int skipped = 0;
+        List<FaqEntry> batch = new ArrayList<>(batchSize);
+        try {
+            while (entries.hasNext()) {
+                FaqEntry entry = entries.next();
+                if (isBlank(entry.getQuestion()) || isBlank(entry.getAnswer())) {
+                    skipped++;
+                    continue;
+                }
+                entry.setQuestion(sanitize(entry.getQuestion()));
+                entry.setAnswer(sanitize(entry.getAnswer()));
+                batch.add(entry);
+                if (batch.size() >= batchSize) {
+                    pipeline.insert(client, batch);
+                    imported += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                pipeline.insert(client, batch);
+                imported += batch.size();
+            }
+        } catch (RuntimeException e) {
+            // the batches committed so far stay and are still indexed
+            log.error("FAQ import for client ID: {} failed after {} entries", clientId, imported, e);
+            throw new FaqImportException(new FaqImportResponse(imported, skipped,
+                    String.format("Imported %d FAQ entries before the import failed: %s", imported,
+                            e.getMessage())), e);
+        } finally {
+            pipeline.complete().whenComplete((v, e) -> {
+                if (e != null) {
+                    log.error("Indexing of imported FAQs failed for client ID: {}", clientId, e);
+                } else {
+                    log.info("Finished indexing imported FAQs for client ID: {}", clientId);
+                    changeEventBus.publish(new ChangeEvent.DocsChanged(clientId));
+                }
+            });
+            if (imported > 0) {
+                changeEventBus.publish(new ChangeEvent.DocsChanged(clientId));
+            }
+        }
+
+        log.info("Imported {} FAQ entries for client ID: {} ({} skipped)", imported, clientId, skipped);
+        return new FaqImportResponse(imported, skipped,
+                String.format("Imported %d FAQ entries. Indexing is running in the background.", imported));
+    }
+
+    // postgres rejects null bytes in text columns
+    private String sanitize(String text) {
+        return (text.indexOf('\u0000') >= 0 ? text.replace("\u0000", "") : text).trim();
+    }
+
+    private boolean isBlank(String text) {
+        return text == null || text.isBlank();
+    }
+}
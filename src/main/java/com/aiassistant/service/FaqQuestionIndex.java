@@ -0,0 +1,107 @@
+package com.aiassistant.service;
+
+import com.aiassistant.model.FaqDoc;
+import com.aiassistant.repository.FaqDocRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client hash index of normalized FAQ questions to their stored answers.
+ * Lets the chat pipeline answer questions typed (almost) verbatim without
+ * calling the embedding API, pgvector or the LLM.
+ */
+@Service
+public class FaqQuestionIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FaqQuestionIndex.class);
+
+    private final FaqDocRepository faqDocRepository;
+
+    // Key: client ID. Value: normalized question -> answer. Clients that stop chatting are dropped.
+    private final LoadingCache<Long, Map<String, String>> indexByClient;
+
+    public FaqQuestionIndex(FaqDocRepository faqDocRepository,
+            @Value("${app.faq-index.max-clients:1000}") long maxClients,
+            @Value("${app.faq-index.expire-after-access-minutes:60}") long expireAfterAccessMinutes) {
+        this.faqDocRepository = faqDocRepository;
+        this.indexByClient = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES)
+                .build(this::buildIndex);
+    }
+
+    /**
+     * Looks up a stored answer whose question matches the given message once both are normalized.
+     *
+     * @param clientId The client the message belongs to.
+     * @param message  The raw user message.
+     * @return The stored answer, or empty if no FAQ question matches.
+     */
+    public Optional<String> findAnswer(Long clientId, String message) {
+        String key = normalize(message);
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, String> index = indexByClient.get(clientId);
+        return Optional.ofNullable(index.get(key));
+    }
+
+    /**
+     * Drops the index for a client so it is rebuilt on the next lookup.
+     * Call this whenever the client's documents change.
+     */
+    public void invalidate(Long clientId) {
+        indexByClient.invalidate(clientId);
+    }
+
+    public void invalidateAll() {
+        indexByClient.invalidateAll();
+    }
+
+    private Map<String, String> buildIndex(Long clientId) {
+        List<FaqDoc> pairs = faqDocRepository.findQuestionAnswerPairsByClientId(clientId);
+        Map<String, String> index = new HashMap<>();
+        for (FaqDoc doc : pairs) {
+            String key = normalize(doc.getQuestion());
+            if (!key.isEmpty() && doc.getAnswer() != null) {
+                // first one wins if two questions normalize the same
+                index.putIfAbsent(key, doc.getAnswer());
+            }
+        }
+        log.info("Built FAQ question index for client ID: {} with {} entries", clientId, index.size());
+        return Map.copyOf(index);
+    }
+
+    // lowercase, drop punctuation and collapse whitespace so "What are your hours?" == "what are your hours"
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                pendingSpace = false;
+                sb.append(c);
+            } else if (c != '\'' && c != '\u2019') { // "what's" and "whats" should match
+                pendingSpace = true;
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,89 @@
+package com.aiassistant.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The indexing tasks this node is working on, whether a worker claimed them from the
+ * {@link IndexingTaskQueue} or an upload or import registered the documents it embeds itself.
+ * Their leases are extended on a schedule until they are completed or failed.
+ */
+@Component
+public class IndexingLeases {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexingLeases.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final IndexingTaskQueue queue;
+
+    // task id -> task, for the heartbeat
+    private final Map<Long, IndexingTaskQueue.Task> running = new ConcurrentHashMap<>();
+
+    @Value("${app.indexing.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${app.indexing.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.indexing.retry-backoff-seconds:30}")
+    private long retryBackoffSeconds;
+
+    public IndexingLeases(IndexingTaskQueue queue) {
+        this.queue = queue;
+    }
+
+    // lease owner of every task run on this node
+    public String owner() {
+        return nodeId;
+    }
+
+    public Duration lease() {
+        return Duration.ofSeconds(leaseSeconds);
+    }
+
+    void hold(IndexingTaskQueue.Task task) {
+        running.put(task.id(), task);
+    }
+
+    // returns false if the lease was lost in the meantime, the task is then redone elsewhere
+    boolean complete(IndexingTaskQueue.Task task) {
+        try {
+            return queue.complete(task, nodeId);
+        } finally {
+            running.remove(task.id());
+        }
+    }
+
+    // hands the task back for another attempt after a backoff, or gives up after max-attempts
+    void fail(IndexingTaskQueue.Task task, String error) {
+        try {
+            queue.fail(task, nodeId, error, maxAttempts, Duration.ofSeconds(retryBackoffSeconds));
+        } finally {
+            running.remove(task.id());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.indexing.heartbeat-seconds:30}", timeUnit = TimeUnit.SECONDS)
+    public void heartbeat() {
+        if (running.isEmpty()) {
+            return;
+        }
+        try {
+            int extended = queue.heartbeat(nodeId, running.keySet(), lease());
+            if (extended < running.size()) {
+                log.warn("{} of {} running indexing tasks lost their lease", running.size() - extended, running.size());
+            }
+        } catch (Exception e) {
+            log.warn("Could not extend indexing task leases", e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.aiassistant.service;
+
+import com.aiassistant.config.DataSourceWorkload;
+import com.aiassistant.dto.FaqEntry;
+import com.aiassistant.model.Client;
+import com.aiassistant.model.FaqDoc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Inserts batches of documents and feeds them into the embedding pipeline as they are committed.
+ * Batches are indexed one after another, in insert order, while the caller keeps inserting; once
+ * {@code maxPendingBatches} are waiting to be embedded, insert blocks until one of them is done.
+ * Every batch is an indexing task leased to this node until it is embedded, so POST /index leaves it
+ * alone; a batch that fails is handed back to the {@link IndexingWorker}s to retry.
+ * Not thread safe: insert and complete from a single thread.
+ */
+public class IndexingPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexingPipeline.class);
+
+    // rows inserted together and the indexing task covering them
+    public record Batch(IndexingTaskQueue.Task task, List<FaqDoc> docs) {
+    }
+
+    private final Sinks.Many<Batch> batches = Sinks.many().unicast().onBackpressureBuffer();
+    private final FaqDocBatchWriter batchWriter;
+    private final IndexingLeases leases;
+    // one permit per batch inserted but not yet indexed or handed back
+    private final Semaphore pending;
+    // first batch that failed, the pipeline still indexes the others
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final CompletableFuture<Void> done;
+
+    IndexingPipeline(EmbeddingService embeddingService, FaqDocBatchWriter batchWriter, IndexingLeases leases,
+            Consumer<List<FaqDoc>> onBatchIndexed, int maxPendingBatches) {
+        this.batchWriter = batchWriter;
+        this.leases = leases;
+        this.pending = new Semaphore(maxPendingBatches);
+        this.done = batches.asFlux()
+                .concatMap(batch -> embeddingService.indexDocuments(batch.docs())
+                        .then(Mono.fromRunnable(() -> {
+                            if (DataSourceWorkload.bulk(() -> leases.complete(batch.task()))) {
+                                onBatchIndexed.accept(batch.docs());
+                            } else {
+                                log.warn("Lost the lease on indexing task {} before it finished, a worker redoes it",
+                                        batch.task().id());
+                            }
+                        }))
+                        .onErrorResume(e -> {
+                            failed(batch, e);
+                            return Mono.empty();
+                        })
+                        .doFinally(signal -> pending.release()))
+                .then(Mono.defer(() -> failure.get() != null ? Mono.<Void>error(failure.get()) : Mono.<Void>empty()))
+                .toFuture();
+    }
+
+    public void insert(Client client, List<FaqEntry> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            pending.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the embedding pipeline", e);
+        }
+        Batch batch;
+        try {
+            batch = batchWriter.insert(client, rows, leases.owner(), leases.lease());
+        } catch (RuntimeException e) {
+            pending.release();
+            throw e;
+        }
+        leases.hold(batch.task());
+        batches.tryEmitNext(batch);
+    }
+
+    // no more batches, the future completes once everything inserted has been indexed or handed back
+    public CompletableFuture<Void> complete() {
+        batches.tryEmitComplete();
+        return done;
+    }
+
+    private void failed(Batch batch, Throwable e) {
+        failure.compareAndSet(null, e);
+        try {
+            DataSourceWorkload.bulk(() -> leases.fail(batch.task(), String.valueOf(e.getMessage())));
+        } catch (RuntimeException ex) {
+            // the lease runs out on its own and a worker claims the task
+            log.warn("Could not hand indexing task {} back to the queue", batch.task().id(), ex);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.aiassistant.service;
+
+import com.aiassistant.repository.FaqDocRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Indexing work kept in the indexing_tasks table, so every node can pick it up.
+ * Tasks are claimed with {@code FOR UPDATE SKIP LOCKED} under a lease that the owner keeps extending;
+ * a task whose lease ran out (its node died or stalled) is claimed again by whoever polls next.
+ * Lease times come from the nodes' clocks, which are assumed to be kept in sync.
+ */
+@Service
+public class IndexingTaskQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexingTaskQueue.class);
+
+    private static final String PENDING = "PENDING";
+    private static final String RUNNING = "RUNNING";
+    private static final String FAILED = "FAILED";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FaqDocRepository faqDocRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public IndexingTaskQueue(JdbcTemplate jdbcTemplate, FaqDocRepository faqDocRepository,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.faqDocRepository = faqDocRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // retry: an earlier attempt may have written some of the range's embeddings
+    record Task(long id, Long clientId, long afterDocId, long upperDocId, int attempts, boolean retry) {
+    }
+
+    // documents (afterDocId, upperDocId] of a pending or running task
+    private record OpenRange(long afterDocId, long upperDocId) {
+    }
+
+    /**
+     * Splits a client's documents that have no embeddings yet into tasks of up to {@code docsPerTask}
+     * documents. The ranges are walked from the lowest id; documents already covered by an open task are
+     * not queued again, and no new task spans an open one, so two tasks never share a document.
+     *
+     * @return the number of tasks created.
+     */
+    public int enqueue(Long clientId, int docsPerTask) {
+        Integer created = transactionTemplate.execute(status -> {
+            lockClient(clientId);
+            List<OpenRange> open = jdbcTemplate.query("""
+                    SELECT after_doc_id, upper_doc_id FROM indexing_tasks
+                    WHERE client_id = ? AND status IN (?, ?)
+                    ORDER BY after_doc_id
+                    """, (rs, i) -> new OpenRange(rs.getLong("after_doc_id"), rs.getLong("upper_doc_id")),
+                    clientId, PENDING, RUNNING);
+            Timestamp now = Timestamp.from(Instant.now());
+            int count = 0;
+            long afterId = 0;
+            // the gaps between open tasks, then everything after the last one
+            for (OpenRange range : open) {
+                count += enqueueRange(clientId, afterId, range.afterDocId(), docsPerTask, now);
+                afterId = Math.max(afterId, range.upperDocId());
+            }
+            return count + enqueueRange(clientId, afterId, Long.MAX_VALUE, docsPerTask, now);
+        });
+        return created != null ? created : 0;
+    }
+
+    // queues the unindexed documents in (afterId, upToId]
+    private int enqueueRange(Long clientId, long afterId, long upToId, int docsPerTask, Timestamp now) {
+        int count = 0;
+        Long upperId;
+        while (afterId < upToId
+                && (upperId = faqDocRepository.findUnindexedBatchUpperBound(clientId, afterId, upToId,
+                        docsPerTask)) != null) {
+            jdbcTemplate.update("""
+                    INSERT INTO indexing_tasks (client_id, after_doc_id, upper_doc_id, status, attempts, available_at)
+                    VALUES (?, ?, ?, ?, 0, ?)
+                    """, clientId, afterId, upperId, PENDING, now);
+            afterId = upperId;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Records documents inserted for in-process indexing (uploads, imports) as a task already running under
+     * {@code owner}, so {@link #enqueue} leaves them to their pipeline. Runs in the caller's transaction,
+     * which must have called {@link #lockClient} before inserting the documents: the documents and their
+     * task then become visible to enqueue together.
+     */
+    public Task addRunning(Long clientId, long afterDocId, long upperDocId, String owner, Duration lease) {
+        Timestamp now = Timestamp.from(Instant.now());
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("""
+                    INSERT INTO indexing_tasks (client_id, after_doc_id, upper_doc_id, status, attempts, lease_owner,
+                    lease_expires_at, available_at)
+                    VALUES (?, ?, ?, ?, 1, ?, ?, ?)
+                    """, new String[] { "id" });
+            ps.setLong(1, clientId);
+            ps.setLong(2, afterDocId);
+            ps.setLong(3, upperDocId);
+            ps.setString(4, RUNNING);
+            ps.setString(5, owner);
+            ps.setTimestamp(6, Timestamp.from(now.toInstant().plus(lease)));
+            ps.setTimestamp(7, now);
+            return ps;
+        }, keys);
+        return new Task(keys.getKey().longValue(), clientId, afterDocId, upperDocId, 1, false);
+    }
+
+    // serializes enqueues and in-process inserts for the same client across nodes, held until the transaction ends
+    void lockClient(Long clientId) {
+        List<Long> locked = jdbcTemplate.queryForList("SELECT id FROM clients WHERE id = ? FOR UPDATE",
+                Long.class, clientId);
+        if (locked.isEmpty()) {
+            throw new RuntimeException("Client not found with ID: " + clientId);
+        }
+    }
+
+    /**
+     * Claims up to {@code limit} tasks for {@code owner}: pending tasks whose retry time has come and
+     * running tasks whose lease has expired. Rows locked by another node's claim are skipped.
+     */
+    public List<Task> claim(String owner, int limit, Duration lease) {
+        List<Task> claimed = transactionTemplate.execute(status -> {
+            Timestamp now = Timestamp.from(Instant.now());
+            List<Task> tasks = jdbcTemplate.query("""
+                    SELECT id, client_id, after_doc_id, upper_doc_id, attempts, last_error FROM indexing_tasks
+                    WHERE (status = ? AND available_at <= ?) OR (status = ? AND lease_expires_at < ?)
+                    ORDER BY id
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED
+                    """,
+                    (rs, i) -> new Task(rs.getLong("id"), rs.getLong("client_id"), rs.getLong("after_doc_id"),
+                            rs.getLong("upper_doc_id"), rs.getInt("attempts") + 1,
+                            rs.getInt("attempts") > 0 || rs.getString("last_error") != null),
+                    PENDING, now, RUNNING, now, limit);
+            if (tasks.isEmpty()) {
+                return tasks;
+            }
+            Timestamp expires = Timestamp.from(now.toInstant().plus(lease));
+            jdbcTemplate.update("UPDATE indexing_tasks SET status = ?, lease_owner = ?, lease_expires_at = ?, "
+                    + "attempts = attempts + 1 WHERE id IN (" + ids(tasks.stream().map(Task::id).toList()) + ")",
+                    RUNNING, owner, expires);
+            return tasks;
+        });
+        return claimed != null ? claimed : Collections.emptyList();
+    }
+
+    /**
+     * Extends the lease of tasks still owned by {@code owner}.
+     *
+     * @return the number of tasks whose lease was extended; fewer than asked means a lease was lost.
+     */
+    public int heartbeat(String owner, Collection<Long> taskIds, Duration lease) {
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update("UPDATE indexing_tasks SET lease_expires_at = ? "
+                + "WHERE lease_owner = ? AND status = ? AND id IN (" + ids(taskIds) + ")",
+                Timestamp.from(Instant.now().plus(lease)), owner, RUNNING);
+    }
+
+    // finished tasks are removed, returns false if the lease was lost to another node in the meantime
+    public boolean complete(Task task, String owner) {
+        return jdbcTemplate.update("DELETE FROM indexing_tasks WHERE id = ? AND lease_owner = ? AND status = ?",
+                task.id(), owner, RUNNING) > 0;
+    }
+
+    /**
+     * Puts a task back for another attempt after {@code backoff}, or marks it FAILED once it has
+     * been tried {@code maxAttempts} times. Failed tasks stay in the table for inspection.
+     */
+    public void fail(Task task, String owner, String error, int maxAttempts, Duration backoff) {
+        boolean giveUp = task.attempts() >= maxAttempts;
+        Timestamp retryAt = Timestamp.from(Instant.now().plus(backoff.multipliedBy(task.attempts())));
+        int updated = jdbcTemplate.update("""
+                UPDATE indexing_tasks SET status = ?, lease_owner = NULL, lease_expires_at = NULL,
+                available_at = ?, last_error = ?
+                WHERE id = ? AND lease_owner = ? AND status = ?
+                """, giveUp ? FAILED : PENDING, retryAt, error, task.id(), owner, RUNNING);
+        if (updated > 0 && giveUp) {
+            log.error("Indexing task {} for client ID {} failed {} times, giving up: {}", task.id(),
+                    task.clientId(), task.attempts(), error);
+        }
+    }
+
+    // hands running tasks back straight away when a node shuts down cleanly, without counting the attempt
+    public int release(String owner) {
+        return jdbcTemplate.update("""
+                UPDATE indexing_tasks SET status = ?, lease_owner = NULL, lease_expires_at = NULL, attempts = attempts - 1,
+                last_error = ?
+                WHERE lease_owner = ? AND status = ?
+                """, PENDING, "released on shutdown", owner, RUNNING);
+    }
+
+    private static String ids(Collection<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+}
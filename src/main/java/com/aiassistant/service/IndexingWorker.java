@@ -0,0 +1,175 @@
+package com.aiassistant.service;
+
+import com.aiassistant.config.DataSourceWorkload;
+import com.aiassistant.events.ChangeEvent;
+import com.aiassistant.events.ChangeEventBus;
+import com.aiassistant.metrics.IndexingMetrics;
+import com.aiassistant.model.FaqDoc;
+import com.aiassistant.repository.EmbeddingRepository;
+import com.aiassistant.repository.FaqDocRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pulls indexing tasks from the shared {@link IndexingTaskQueue} and embeds their documents.
+ * Every node runs {@code app.indexing.workers} of these loops, so adding nodes adds indexing throughput.
+ */
+@Component
+public class IndexingWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexingWorker.class);
+
+    private final IndexingTaskQueue queue;
+    private final IndexingLeases leases;
+    private final FaqDocRepository faqDocRepository;
+    private final EmbeddingRepository embeddingRepository;
+    private final EmbeddingService embeddingService;
+    private final ChangeEventBus changeEventBus;
+    private final IndexingMetrics indexingMetrics;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile boolean stopped;
+    private ExecutorService executor;
+
+    @Value("${app.indexing.workers:2}")
+    private int workers;
+
+    @Value("${app.indexing.poll-ms:2000}")
+    private long pollMs;
+
+    public IndexingWorker(IndexingTaskQueue queue, IndexingLeases leases, FaqDocRepository faqDocRepository,
+            EmbeddingRepository embeddingRepository, EmbeddingService embeddingService,
+            ChangeEventBus changeEventBus, IndexingMetrics indexingMetrics,
+            PlatformTransactionManager transactionManager) {
+        this.queue = queue;
+        this.leases = leases;
+        this.faqDocRepository = faqDocRepository;
+        this.embeddingRepository = embeddingRepository;
+        this.embeddingService = embeddingService;
+        this.changeEventBus = changeEventBus;
+        this.indexingMetrics = indexingMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // started once the schema is migrated and the app is serving
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (workers <= 0) {
+            log.info("Indexing workers disabled on this node, tasks are left to the other nodes");
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "indexing-worker-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> DataSourceWorkload.bulk(this::loop));
+        }
+        log.info("Started {} indexing workers as node {}", workers, leases.owner());
+    }
+
+    private void loop() {
+        while (!stopped) {
+            try {
+                List<IndexingTaskQueue.Task> tasks = queue.claim(leases.owner(), 1, leases.lease());
+                if (tasks.isEmpty()) {
+                    Thread.sleep(pollMs);
+                    continue;
+                }
+                for (IndexingTaskQueue.Task task : tasks) {
+                    process(task);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // database unreachable and the like, back off and poll again
+                log.warn("Indexing worker could not poll for tasks", e);
+                try {
+                    Thread.sleep(pollMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void process(IndexingTaskQueue.Task task) {
+        long start = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        leases.hold(task);
+        try {
+            List<FaqDoc> docs = docsToIndex(task);
+            if (!docs.isEmpty()) {
+                embeddingService.indexDocuments(docs).block();
+            }
+            if (leases.complete(task)) {
+                log.info("Indexed {} documents of client ID {} (task {}, attempt {}) in {}ms", docs.size(),
+                        task.clientId(), task.id(), task.attempts(), System.currentTimeMillis() - start);
+                changeEventBus.publish(new ChangeEvent.DocsChanged(task.clientId()));
+                indexingMetrics.taskCompleted(startNanos);
+            } else {
+                indexingMetrics.taskLeaseLost();
+                log.warn("Lost the lease on indexing task {} before it finished, another node redoes it", task.id());
+            }
+        } catch (Exception e) {
+            log.warn("Indexing task {} for client ID {} failed on attempt {}", task.id(), task.clientId(),
+                    task.attempts(), e);
+            indexingMetrics.taskFailed();
+            leases.fail(task, String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * The task's documents without embeddings. An earlier attempt may have left some half embedded, and
+     * those can't be told from complete ones without chunking every document again, so a retry drops the
+     * embeddings of the whole range and starts over. Open tasks never overlap, so nobody else is writing them.
+     */
+    private List<FaqDoc> docsToIndex(IndexingTaskQueue.Task task) {
+        if (!task.retry()) {
+            return faqDocRepository.findUnindexedByClientIdAndIdRange(task.clientId(), task.afterDocId(),
+                    task.upperDocId());
+        }
+        Integer removed = transactionTemplate.execute(status -> embeddingRepository.deleteByClientIdAndDocIdRange(
+                task.clientId(), task.afterDocId(), task.upperDocId()));
+        log.debug("Removed {} embeddings left by earlier attempts of task {}", removed, task.id());
+        return faqDocRepository.findByClientIdAndIdRange(task.clientId(), task.afterDocId(), task.upperDocId());
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+            int released = queue.release(leases.owner());
+            if (released > 0) {
+                log.info("Released {} unfinished indexing tasks", released);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // the leases run out on their own
+            log.warn("Could not release indexing tasks on shutdown", e);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.aiassistant.service;
+
+import com.aiassistant.dto.BulkUploadResult;
+import com.aiassistant.dto.IngestionStatus;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+// live state of one background upload, shared between the worker and status requests
+public class IngestionJob {
+
+    public enum State {
+        QUEUED, EXTRACTING, INDEXING, COMPLETED, FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long clientId;
+    private final String filename;
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong sectionsStored = new AtomicLong();
+    private final AtomicLong sectionsIndexed = new AtomicLong();
+    private volatile State state = State.QUEUED;
+    private volatile String error;
+    private volatile Instant finishedAt;
+    // files of an archive, each queued as its own job or rejected; empty unless this job is an archive
+    private final List<Entry> entries = new CopyOnWriteArrayList<>();
+
+    public IngestionJob(Long clientId, String filename) {
+        this.clientId = clientId;
+        this.filename = filename;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    void setState(State state) {
+        this.state = state;
+    }
+
+    void addStored(long count) {
+        sectionsStored.addAndGet(count);
+    }
+
+    void addIndexed(long count) {
+        sectionsIndexed.addAndGet(count);
+    }
+
+    void addEntry(IngestionJob job) {
+        entries.add(new Entry(job.getFilename(), job, null));
+    }
+
+    void addRejectedEntry(String filename, String error) {
+        entries.add(new Entry(filename, null, error));
+    }
+
+    void complete() {
+        this.finishedAt = Instant.now();
+        this.state = State.COMPLETED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.state = State.FAILED;
+    }
+
+    public IngestionStatus toStatus() {
+        IngestionStatus status = new IngestionStatus();
+        status.setId(id);
+        status.setClientId(clientId);
+        status.setFilename(filename);
+        status.setState(state.name());
+        status.setSectionsStored(sectionsStored.get());
+        status.setSectionsIndexed(sectionsIndexed.get());
+        status.setError(error);
+        status.setStartedAt(startedAt);
+        status.setFinishedAt(finishedAt);
+        if (!entries.isEmpty()) {
+            status.setFiles(entries.stream().map(Entry::toResult).toList());
+        }
+        return status;
+    }
+
+    private record Entry(String filename, IngestionJob job, String error) {
+        BulkUploadResult toResult() {
+            return new BulkUploadResult(filename, job != null ? job.toStatus() : null, error);
+        }
+    }
+}
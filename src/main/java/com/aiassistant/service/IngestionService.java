@@ -0,0 +1,305 @@
+package com.aiassistant.service;
+
+import com.aiassistant.config.DataSourceWorkload;
+import com.aiassistant.dto.FaqEntry;
+import com.aiassistant.dto.IngestionStatus;
+import com.aiassistant.events.ChangeEvent;
+import com.aiassistant.events.ChangeEventBus;
+import com.aiassistant.model.Client;
+import com.aiassistant.repository.ClientRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Background ingestion of uploaded files.
+ * The upload is spooled to disk, its text is extracted into a {@link TextSpool}, and the chunker
+ * streams sections out of the spool. Sections are stored as their own faq_docs rows in batches and
+ * each batch is embedded as soon as it is committed, so the heap never holds the whole document.
+ */
+@Service
+public class IngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionService.class);
+
+    static final String TOO_BUSY = "Too many uploads in progress, please try again shortly.";
+
+    private final ClientRepository clientRepository;
+    private final PdfTextExtractor pdfTextExtractor;
+    private final DocumentChunker documentChunker;
+    private final EmbeddingService embeddingService;
+    private final ChangeEventBus changeEventBus;
+    private final ThreadPoolExecutor executor;
+
+    // finished jobs stay visible for a while so the admin page can poll them
+    private final Cache<String, IngestionJob> jobs = Caffeine.newBuilder()
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .maximumSize(10000)
+            .build();
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    public IngestionService(ClientRepository clientRepository, PdfTextExtractor pdfTextExtractor,
+            DocumentChunker documentChunker, EmbeddingService embeddingService,
+            ChangeEventBus changeEventBus,
+            @Value("${app.ingestion.workers:2}") int workers,
+            @Value("${app.ingestion.queue-capacity:100}") int queueCapacity) {
+        this.clientRepository = clientRepository;
+        this.pdfTextExtractor = pdfTextExtractor;
+        this.documentChunker = documentChunker;
+        this.embeddingService = embeddingService;
+        this.changeEventBus = changeEventBus;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "ingestion-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        pool.prestartAllCoreThreads();
+        this.executor = pool;
+    }
+
+    /**
+     * Queues an already spooled upload for ingestion and returns its handle right away.
+     * The spooled file is owned by the job from here on and deleted when it finishes.
+     */
+    public IngestionStatus submit(Long clientId, String filename, Path upload) {
+        Client client = clientRepository.findById(clientId)
+                .orElseThrow(() -> {
+                    deleteQuietly(upload);
+                    return new RuntimeException("Client not found with ID: " + clientId);
+                });
+
+        IngestionJob job = new IngestionJob(clientId, filename);
+        jobs.put(job.getId(), job);
+        if (!tryQueue(job, client, upload, Duration.ZERO)) {
+            deleteQuietly(upload);
+            jobs.invalidate(job.getId());
+            throw new RuntimeException(TOO_BUSY);
+        }
+        log.info("Queued ingestion {} of '{}' for client ID: {}", job.getId(), filename, clientId);
+        return job.toStatus();
+    }
+
+    /**
+     * Creates the handle of an upload that is queued later with {@link #queue}. Bulk uploads hand out
+     * the handles of all their files before any of them is queued.
+     */
+    IngestionJob open(Long clientId, String filename) {
+        IngestionJob job = new IngestionJob(clientId, filename);
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    /**
+     * Queues a job from {@link #open}, waiting up to {@code maxWait} for room. A job that can't be queued
+     * is failed instead and its spooled upload deleted.
+     *
+     * @return whether the job was queued.
+     */
+    boolean queue(IngestionJob job, Path upload, Duration maxWait) {
+        Optional<Client> client = clientRepository.findById(job.getClientId());
+        if (client.isPresent() && tryQueue(job, client.get(), upload, maxWait)) {
+            log.info("Queued ingestion {} of '{}' for client ID: {}", job.getId(), job.getFilename(),
+                    job.getClientId());
+            return true;
+        }
+        deleteQuietly(upload);
+        job.fail(client.isPresent() ? TOO_BUSY : "Client not found with ID: " + job.getClientId());
+        return false;
+    }
+
+    private boolean tryQueue(IngestionJob job, Client client, Path upload, Duration maxWait) {
+        try {
+            return enqueue(() -> DataSourceWorkload.bulk(() -> run(job, client, upload)), maxWait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean enqueue(Runnable task, Duration maxWait) throws InterruptedException {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            // core threads are prestarted, so anything put straight on the queue still gets picked up
+            return !maxWait.isZero() && !executor.isShutdown()
+                    && executor.getQueue().offer(task, maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Optional<IngestionStatus> findStatus(Long clientId, String ingestionId) {
+        return Optional.ofNullable(jobs.getIfPresent(ingestionId))
+                .filter(job -> job.getClientId().equals(clientId))
+                .map(IngestionJob::toStatus);
+    }
+
+    private void run(IngestionJob job, Client client, Path upload) {
+        long start = System.currentTimeMillis();
+        IndexingPipeline pipeline = embeddingService.openPipeline(docs -> job.addIndexed(docs.size()));
+        try {
+            try (TextSpool spool = new TextSpool()) {
+                job.setState(IngestionJob.State.EXTRACTING);
+                try (Writer out = new NullByteFilter(spool.writer())) {
+                    if (isPdf(job.getFilename())) {
+                        int pages = pdfTextExtractor.extract(upload, out);
+                        log.info("Extracted {} PDF pages from '{}'", pages, job.getFilename());
+                    } else {
+                        copyLines(upload, out);
+                    }
+                }
+
+                job.setState(IngestionJob.State.INDEXING);
+                SectionWriter sections = new SectionWriter(job, client, pipeline);
+                try (Stream<DocumentChunker.DocumentChunk> chunks = documentChunker.streamChunks(
+                        spool.asCharSequence(), null)) {
+                    chunks.forEach(sections::add);
+                }
+                sections.flush();
+            }
+
+            // text is all stored, wait for the embeddings to catch up
+            pipeline.complete().join();
+            job.complete();
+            changeEventBus.publish(new ChangeEvent.DocsChanged(job.getClientId()));
+            log.info("Ingestion {} finished in {}ms: {} sections", job.getId(),
+                    System.currentTimeMillis() - start, job.toStatus().getSectionsStored());
+        } catch (Exception e) {
+            pipeline.complete();
+            log.error("Ingestion {} of '{}' failed", job.getId(), job.getFilename(), e);
+            job.fail(e.getMessage());
+        } finally {
+            deleteQuietly(upload);
+        }
+    }
+
+    // same normalization as the old BufferedReader.lines() + joining("\n") upload path
+    private void copyLines(Path upload, Writer out) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(upload, StandardCharsets.UTF_8)) {
+            String line;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                if (!first) {
+                    out.write('\n');
+                }
+                out.write(line);
+                first = false;
+            }
+        }
+    }
+
+    private boolean isPdf(String filename) {
+        return filename != null && filename.toLowerCase().endsWith(".pdf");
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled upload {}", file, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // batches chunks into faq_docs rows, the indexing pipeline inserts each batch and embeds it
+    private final class SectionWriter {
+        private final IngestionJob job;
+        private final Client client;
+        private final IndexingPipeline pipeline;
+        private List<FaqEntry> batch = new ArrayList<>();
+        private int part = 0;
+
+        SectionWriter(IngestionJob job, Client client, IndexingPipeline pipeline) {
+            this.job = job;
+            this.client = client;
+            this.pipeline = pipeline;
+        }
+
+        void add(DocumentChunker.DocumentChunk chunk) {
+            if (chunk.getText().isBlank()) {
+                return;
+            }
+            FaqEntry entry = new FaqEntry();
+            entry.setQuestion("Document: " + job.getFilename() + " (part " + (++part) + ")");
+            entry.setAnswer(chunk.getText());
+            batch.add(entry);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            pipeline.insert(client, batch);
+            job.addStored(batch.size());
+            batch = new ArrayList<>();
+        }
+    }
+
+    // postgres hates null bytes, drop them on the way to the spool
+    private static final class NullByteFilter extends FilterWriter {
+        NullByteFilter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (c != 0) {
+                out.write(c);
+            }
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            int start = off;
+            int end = off + len;
+            for (int i = off; i < end; i++) {
+                if (cbuf[i] == '\u0000') {
+                    out.write(cbuf, start, i - start);
+                    start = i + 1;
+                }
+            }
+            out.write(cbuf, start, end - start);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            char[] chars = new char[len];
+            str.getChars(off, off + len, chars, 0);
+            write(chars, 0, len);
+        }
+    }
+}
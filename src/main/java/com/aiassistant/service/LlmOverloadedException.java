@@ -0,0 +1,9 @@
+package com.aiassistant.service;
+
+// Thrown when a chat completion can't get a model slot in time, so callers can fail fast with a friendly message.
+public class LlmOverloadedException extends RuntimeException {
+
+    public LlmOverloadedException(String message) {
+        super(message);
+    }
+}
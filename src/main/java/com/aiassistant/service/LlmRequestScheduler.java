@@ -0,0 +1,239 @@
+package com.aiassistant.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Shares a fixed number of concurrent chat-completion calls between tenants.
+ * While slots are free calls go straight through. Once they are all taken, callers wait in a queue per
+ * tenant and freed slots are handed out by deficit round robin, so every waiting tenant gets slots in
+ * proportion to its weight no matter how many requests it has queued. Waits are bounded by a timeout
+ * and by per-tenant and global queue limits, past which requests fail immediately.
+ */
+@Service
+public class LlmRequestScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmRequestScheduler.class);
+
+    private final int maxConcurrent;
+    private final long queueTimeoutMs;
+    private final int maxQueued;
+    private final int maxQueuedPerWeight;
+
+    // everything below is guarded by this
+    private int available;
+    private int queued;
+    private final Map<Long, TenantQueue> queues = new HashMap<>();
+    private final ArrayDeque<TenantQueue> active = new ArrayDeque<>();
+
+    public LlmRequestScheduler(
+            @Value("${app.llm.scheduler.max-concurrent:32}") int maxConcurrent,
+            @Value("${app.llm.scheduler.queue-timeout-ms:15000}") long queueTimeoutMs,
+            @Value("${app.llm.scheduler.max-queued:500}") int maxQueued,
+            @Value("${app.llm.scheduler.max-queued-per-weight:20}") int maxQueuedPerWeight) {
+        this.maxConcurrent = maxConcurrent;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.maxQueued = maxQueued;
+        this.maxQueuedPerWeight = maxQueuedPerWeight;
+        this.available = maxConcurrent;
+    }
+
+    /**
+     * Runs the call once the tenant has been given a slot, and frees the slot when the returned
+     * flux completes, fails or is cancelled.
+     *
+     * @param weight The tenant's share relative to others, values below 1 count as 1.
+     */
+    public <T> Flux<T> schedule(Long clientId, int weight, Supplier<Flux<T>> call) {
+        return Flux.usingWhen(acquire(clientId, Math.max(weight, 1)),
+                permit -> call.get(),
+                permit -> Mono.fromRunnable(permit::release));
+    }
+
+    private Mono<Permit> acquire(Long clientId, int weight) {
+        return Mono.create(sink -> {
+            Waiter waiter;
+            synchronized (this) {
+                // nobody is waiting, no need to queue
+                if (available > 0 && active.isEmpty()) {
+                    available--;
+                    sink.success(new Permit());
+                    return;
+                }
+                TenantQueue queue = queues.computeIfAbsent(clientId, TenantQueue::new);
+                queue.weight = weight;
+                if (queued >= maxQueued || queue.waiters.size() >= maxQueuedPerWeight * weight) {
+                    sink.error(new LlmOverloadedException("Model queue is full"));
+                    log.debug("Shed LLM request for client ID {}: {} queued in total, {} for the client",
+                            clientId, queued, queue.waiters.size());
+                    if (queue.waiters.isEmpty() && !active.contains(queue)) {
+                        queues.remove(clientId);
+                    }
+                    return;
+                }
+                waiter = new Waiter(queue, sink);
+                queue.waiters.addLast(waiter);
+                queued++;
+                if (queue.waiters.size() == 1 && !active.contains(queue)) {
+                    active.addLast(queue);
+                }
+            }
+            waiter.timeout = Schedulers.parallel().schedule(() -> expire(waiter), queueTimeoutMs,
+                    TimeUnit.MILLISECONDS);
+            sink.onCancel(() -> cancel(waiter));
+        });
+    }
+
+    private void release() {
+        List<Waiter> granted;
+        synchronized (this) {
+            available++;
+            granted = dispatch();
+        }
+        granted.forEach(Waiter::grant);
+    }
+
+    // deficit round robin over the tenants that have someone waiting, caller holds the lock
+    private List<Waiter> dispatch() {
+        List<Waiter> granted = new ArrayList<>();
+        while (available > 0 && !active.isEmpty()) {
+            TenantQueue queue = active.peekFirst();
+            if (!queue.inRound) {
+                queue.deficit += queue.weight;
+                queue.inRound = true;
+            }
+            while (available > 0 && queue.deficit >= 1 && !queue.waiters.isEmpty()) {
+                Waiter waiter = queue.waiters.pollFirst();
+                queued--;
+                available--;
+                queue.deficit--;
+                waiter.permit = new Permit();
+                granted.add(waiter);
+            }
+            if (queue.waiters.isEmpty()) {
+                // idle tenants don't bank credit
+                active.pollFirst();
+                queues.remove(queue.clientId);
+            } else if (queue.deficit < 1) {
+                active.pollFirst();
+                queue.inRound = false;
+                active.addLast(queue);
+            }
+            // otherwise slots ran out, the tenant keeps its turn
+        }
+        return granted;
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (this) {
+            if (!remove(waiter)) {
+                return;
+            }
+        }
+        log.debug("LLM request for client ID {} timed out after {}ms in queue", waiter.queue.clientId,
+                queueTimeoutMs);
+        waiter.sink.error(new LlmOverloadedException("Timed out waiting for a model slot"));
+    }
+
+    private void cancel(Waiter waiter) {
+        Permit permit;
+        synchronized (this) {
+            if (remove(waiter)) {
+                if (waiter.timeout != null) {
+                    waiter.timeout.dispose();
+                }
+                return;
+            }
+            permit = waiter.permit;
+        }
+        // granted but the caller went away before it got the permit
+        if (permit != null) {
+            permit.release();
+        }
+    }
+
+    // caller holds the lock, false if the waiter was already granted or removed
+    private boolean remove(Waiter waiter) {
+        TenantQueue queue = waiter.queue;
+        if (!queue.waiters.remove(waiter)) {
+            return false;
+        }
+        queued--;
+        if (queue.waiters.isEmpty()) {
+            active.remove(queue);
+            queues.remove(queue.clientId);
+        }
+        return true;
+    }
+
+    public synchronized int getAvailableSlots() {
+        return available;
+    }
+
+    public synchronized int getQueuedRequests() {
+        return queued;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    private static final class TenantQueue {
+        final Long clientId;
+        final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        int weight = 1;
+        long deficit;
+        boolean inRound;
+
+        TenantQueue(Long clientId) {
+            this.clientId = clientId;
+        }
+    }
+
+    private static final class Waiter {
+        final TenantQueue queue;
+        final MonoSink<Permit> sink;
+        volatile Disposable timeout;
+        volatile Permit permit;
+
+        Waiter(TenantQueue queue, MonoSink<Permit> sink) {
+            this.queue = queue;
+            this.sink = sink;
+        }
+
+        void grant() {
+            Disposable t = timeout;
+            if (t != null) {
+                t.dispose();
+            }
+            sink.success(permit);
+        }
+    }
+
+    // one slot, released at most once
+    private final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                LlmRequestScheduler.this.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.aiassistant.service;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// pulls text out of pdfs a page range at a time, straight into a writer
+@Service
+public class PdfTextExtractor {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfTextExtractor.class);
+
+    private final ForkJoinPool pool;
+
+    @Value("${app.ingestion.pdf.pages-per-range:25}")
+    private int pagesPerRange;
+
+    // below this many pages the extra document loads cost more than they save
+    @Value("${app.ingestion.pdf.parallel-min-pages:100}")
+    private int parallelMinPages;
+
+    // caps how much extracted text waits in memory for earlier ranges to finish
+    @Value("${app.ingestion.pdf.max-ranges-in-flight:0}")
+    private int maxRangesInFlight;
+
+    // heap each worker's copy of the document may use before PDFBox spills to temp files, 0 = temp files only
+    @Value("${app.ingestion.pdf.max-memory-per-worker-mb:0}")
+    private long maxMemoryPerWorkerMb;
+
+    public PdfTextExtractor(@Value("${app.ingestion.pdf.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("pdf-extract-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+    }
+
+    /**
+     * Writes the text of the whole PDF to {@code out}, in page order.
+     * Big documents are split into page ranges that are stripped in parallel, each worker using
+     * its own copy of the document, and the ranges are written back in order.
+     *
+     * @return The number of pages extracted.
+     */
+    public int extract(Path pdf, Writer out) throws IOException {
+        int pageCount;
+        try (PDDocument document = load(pdf)) {
+            pageCount = document.getNumberOfPages();
+            if (pool.getParallelism() < 2 || pageCount < parallelMinPages) {
+                extractSequential(document, pageCount, out);
+                return pageCount;
+            }
+        }
+        extractParallel(pdf, pageCount, out);
+        return pageCount;
+    }
+
+    private void extractSequential(PDDocument document, int pageCount, Writer out) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        for (int first = 1; first <= pageCount; first += pagesPerRange) {
+            int last = Math.min(first + pagesPerRange - 1, pageCount);
+            stripper.setStartPage(first);
+            stripper.setEndPage(last);
+            stripper.writeText(document, out);
+            log.debug("Extracted pages {}-{} of {}", first, last, pageCount);
+        }
+    }
+
+    private void extractParallel(Path pdf, int pageCount, Writer out) throws IOException {
+        int window = maxRangesInFlight > 0 ? maxRangesInFlight : pool.getParallelism() * 2;
+        log.info("Extracting {} pages in parallel on {} threads", pageCount, pool.getParallelism());
+
+        // PDDocument isn't thread safe, every worker thread loads its own copy once
+        Map<Thread, PDDocument> documents = new ConcurrentHashMap<>();
+        Deque<ForkJoinTask<String>> inFlight = new ArrayDeque<>();
+        // set once the output is abandoned, ranges that haven't started yet then skip their work
+        AtomicBoolean abandoned = new AtomicBoolean();
+        try {
+            int next = 1;
+            while (next <= pageCount || !inFlight.isEmpty()) {
+                while (next <= pageCount && inFlight.size() < window) {
+                    int first = next;
+                    int last = Math.min(first + pagesPerRange - 1, pageCount);
+                    inFlight.addLast(pool.submit(
+                            () -> abandoned.get() ? "" : stripRange(pdf, documents, first, last)));
+                    next = last + 1;
+                }
+                // oldest range first so the output stays in page order
+                out.write(inFlight.removeFirst().join());
+            }
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        } finally {
+            // wait for every range, not just cancel it: a cancelled task returns from join while it still runs,
+            // and its document would be closed under it or loaded after the others were closed
+            abandoned.set(true);
+            inFlight.forEach(ForkJoinTask::quietlyJoin);
+            for (PDDocument document : documents.values()) {
+                try {
+                    document.close();
+                } catch (IOException e) {
+                    log.warn("Failed to close PDF worker document", e);
+                }
+            }
+        }
+    }
+
+    private String stripRange(Path pdf, Map<Thread, PDDocument> documents, int first, int last) throws IOException {
+        PDDocument document = documents.computeIfAbsent(Thread.currentThread(), t -> {
+            try {
+                return load(pdf);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(first);
+        stripper.setEndPage(last);
+        String text = stripper.getText(document);
+        log.debug("Extracted pages {}-{} on {}", first, last, Thread.currentThread().getName());
+        return text;
+    }
+
+    private PDDocument load(Path pdf) throws IOException {
+        MemoryUsageSetting memory = maxMemoryPerWorkerMb > 0
+                ? MemoryUsageSetting.setupMixed(maxMemoryPerWorkerMb * 1024 * 1024)
+                : MemoryUsageSetting.setupTempFileOnly();
+        return PDDocument.load(pdf.toFile(), memory);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
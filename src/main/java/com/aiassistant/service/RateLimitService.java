@@ -0,0 +1,184 @@
+package com.aiassistant.service;
+
+import com.aiassistant.model.Client;
+import com.aiassistant.repository.ClientRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per API key admission control for the chat stream.
+ * Limits come from the clients table and fall back to the app.rate-limit defaults. They are cached per
+ * key and reloaded in the background, so the hot path is a cache read plus a couple of atomic updates.
+ */
+@Service
+public class RateLimitService {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitService.class);
+
+    private static final Admission UNLIMITED = new Admission(null, 0, null);
+    private static final Admission UNKNOWN_KEY_ADMISSION = new Admission(null, 0, "Invalid API Key provided.");
+
+    // cached for api keys that match no client, so repeated bad keys don't each go to the database
+    private static final TenantRateLimiter UNKNOWN_KEY = new TenantRateLimiter(null, 0, 0, 0);
+
+    private final ClientRepository clientRepository;
+    private final LoadingCache<String, TenantRateLimiter> limiters;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.requests-per-minute:120}")
+    private int defaultPerMinute;
+
+    @Value("${app.rate-limit.burst:20}")
+    private int defaultBurst;
+
+    @Value("${app.rate-limit.max-concurrent-streams:20}")
+    private int defaultMaxStreams;
+
+    public RateLimitService(ClientRepository clientRepository,
+            @Value("${app.rate-limit.reload-seconds:60}") long reloadSeconds,
+            @Value("${app.rate-limit.unknown-key-seconds:10}") long unknownKeySeconds) {
+        this.clientRepository = clientRepository;
+        this.limiters = Caffeine.newBuilder()
+                // an hour after the last access, unknown keys after a few seconds so new clients get in
+                .expireAfter(new Expiry<String, TenantRateLimiter>() {
+                    @Override
+                    public long expireAfterCreate(String apiKey, TenantRateLimiter limiter, long currentTime) {
+                        return limiter == UNKNOWN_KEY ? TimeUnit.SECONDS.toNanos(unknownKeySeconds)
+                                : TimeUnit.HOURS.toNanos(1);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String apiKey, TenantRateLimiter limiter, long currentTime,
+                            long currentDuration) {
+                        return expireAfterCreate(apiKey, limiter, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String apiKey, TenantRateLimiter limiter, long currentTime,
+                            long currentDuration) {
+                        return limiter == UNKNOWN_KEY ? currentDuration : TimeUnit.HOURS.toNanos(1);
+                    }
+                })
+                .refreshAfterWrite(reloadSeconds, TimeUnit.SECONDS)
+                .maximumSize(100000)
+                .build(new CacheLoader<>() {
+                    @Override
+                    public TenantRateLimiter load(String apiKey) {
+                        return clientRepository.findByApiKey(apiKey)
+                                .map(client -> new TenantRateLimiter(client.getId(), perMinute(client), burst(client),
+                                        maxStreams(client)))
+                                .orElse(UNKNOWN_KEY);
+                    }
+
+                    @Override
+                    public TenantRateLimiter reload(String apiKey, TenantRateLimiter limiter) {
+                        if (limiter == UNKNOWN_KEY) {
+                            return load(apiKey);
+                        }
+                        // keep the bucket and the open stream count, only the limits change
+                        return clientRepository.findByApiKey(apiKey)
+                                .map(client -> {
+                                    limiter.updateLimits(perMinute(client), burst(client), maxStreams(client));
+                                    return limiter;
+                                })
+                                .orElse(UNKNOWN_KEY);
+                    }
+                });
+    }
+
+    /**
+     * Admits one chat stream for the given API key, or says how long to back off.
+     * A granted admission holds a stream slot until {@link Admission#release()} is called.
+     * Keys that match no client are refused with {@link Admission#isUnknownKey()}.
+     */
+    public Admission tryAdmit(String apiKey) {
+        if (!enabled || apiKey == null) {
+            return UNLIMITED;
+        }
+        TenantRateLimiter limiter = limiters.get(apiKey);
+        if (limiter == UNKNOWN_KEY) {
+            return UNKNOWN_KEY_ADMISSION;
+        }
+        long waitNanos = limiter.tryAcquire();
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            log.debug("Rejected chat stream, retry after {}s ({} open)", retryAfter, limiter.openStreams());
+            return new Admission(null, retryAfter, "Too many requests, please retry later.");
+        }
+        return new Admission(limiter, 0, null);
+    }
+
+    /**
+     * Re-reads the limits of a client's keys in the background, keeping their current state.
+     *
+     * @param clientId The client whose row changed, or null for every client.
+     */
+    public void reload(Long clientId) {
+        limiters.asMap().forEach((apiKey, limiter) -> {
+            if (clientId == null || clientId.equals(limiter.clientId())) {
+                limiters.refresh(apiKey);
+            }
+        });
+    }
+
+    private int perMinute(Client client) {
+        return client.getRateLimitPerMinute() != null ? client.getRateLimitPerMinute() : defaultPerMinute;
+    }
+
+    private int burst(Client client) {
+        return client.getRateLimitBurst() != null ? client.getRateLimitBurst() : defaultBurst;
+    }
+
+    private int maxStreams(Client client) {
+        return client.getMaxConcurrentStreams() != null ? client.getMaxConcurrentStreams() : defaultMaxStreams;
+    }
+
+    // Outcome of tryAdmit, release must be called once the admitted stream has ended.
+    public static final class Admission {
+        private final TenantRateLimiter limiter;
+        private final long retryAfterSeconds;
+        private final String reason;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Admission(TenantRateLimiter limiter, long retryAfterSeconds, String reason) {
+            this.limiter = limiter;
+            this.retryAfterSeconds = retryAfterSeconds;
+            this.reason = reason;
+        }
+
+        public boolean isGranted() {
+            return reason == null;
+        }
+
+        // refused because the api key matches no client, not because of its limits
+        public boolean isUnknownKey() {
+            return this == UNKNOWN_KEY_ADMISSION;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        // safe to call more than once, only the first call frees the slot
+        public void release() {
+            if (limiter != null && released.compareAndSet(false, true)) {
+                limiter.releaseStream();
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.aiassistant.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Embeddable scripts, fingerprinted and compressed once at startup and served from memory.
+ * Each script is published as {@code /assets/<name>.<hash>.js}, which never changes and can be cached
+ * forever, while the stable {@code /<name>.js} URL customers embed becomes a tiny bootstrap that loads
+ * the current fingerprinted file. A brotli variant is used when the build put one next to the script
+ * as {@code static/assets/<name>.<hash>.js.br}, as the Dockerfile does; the JDK has no brotli encoder
+ * to make one at runtime.
+ */
+@Service
+public class StaticAssetRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(StaticAssetRegistry.class);
+
+    private static final int HASH_LENGTH = 10;
+
+    // fingerprinted file name -> asset
+    private final Map<String, Asset> versioned = new ConcurrentHashMap<>();
+    // stable file name -> asset
+    private final Map<String, Asset> current = new ConcurrentHashMap<>();
+
+    @Value("${app.assets.scripts:widget.js,loader.js}")
+    private List<String> scripts;
+
+    @PostConstruct
+    public void load() throws IOException {
+        for (String script : scripts) {
+            ClassPathResource resource = new ClassPathResource("static/" + script);
+            if (!resource.exists()) {
+                log.warn("Static asset {} not found, skipping", script);
+                continue;
+            }
+            byte[] identity;
+            try (InputStream in = resource.getInputStream()) {
+                identity = in.readAllBytes();
+            }
+            String hash = hash(identity);
+            String base = script.substring(0, script.lastIndexOf('.'));
+            String versionedName = base + "." + hash + ".js";
+            byte[] gzip = gzip(identity);
+            byte[] brotli = prebuilt("static/assets/" + versionedName + ".br");
+
+            Asset asset = new Asset(versionedName, hash, identity, gzip, brotli, bootstrap(versionedName));
+            versioned.put(versionedName, asset);
+            current.put(script, asset);
+            log.info("Published {} as /assets/{} ({} bytes, {} gzip{})", script, versionedName, identity.length,
+                    gzip.length, brotli != null ? ", " + brotli.length + " brotli" : "");
+        }
+    }
+
+    public Optional<Asset> findVersioned(String filename) {
+        return Optional.ofNullable(versioned.get(filename));
+    }
+
+    public Optional<Asset> findCurrent(String filename) {
+        return Optional.ofNullable(current.get(filename));
+    }
+
+    // keeps the embedding <script> tag as is and adds the fingerprinted one, carrying over the data-* settings
+    private byte[] bootstrap(String versionedName) {
+        String js = "(function () {\n"
+                + "    var current = document.currentScript;\n"
+                + "    var script = document.createElement('script');\n"
+                + "    script.src = new URL('/assets/" + versionedName + "', current.src).href;\n"
+                + "    for (var i = 0; i < current.attributes.length; i++) {\n"
+                + "        var attr = current.attributes[i];\n"
+                + "        if (attr.name.indexOf('data-') === 0) script.setAttribute(attr.name, attr.value);\n"
+                + "    }\n"
+                + "    current.parentNode.insertBefore(script, current.nextSibling);\n"
+                + "})();\n";
+        return js.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest).substring(0, HASH_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 3 + 64);
+        // compressed once at startup, so spend the cpu on the best ratio
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] prebuilt(String path) throws IOException {
+        ClassPathResource resource = new ClassPathResource(path);
+        if (!resource.exists()) {
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    // One script with its encodings, all held in memory.
+    public record Asset(String versionedName, String hash, byte[] identity, byte[] gzip, byte[] brotli,
+            byte[] bootstrap) {
+    }
+}
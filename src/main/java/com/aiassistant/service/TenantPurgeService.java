@@ -0,0 +1,130 @@
+package com.aiassistant.service;
+
+import com.aiassistant.config.DataSourceWorkload;
+import com.aiassistant.events.ChangeEvent;
+import com.aiassistant.events.ChangeEventBus;
+import com.aiassistant.repository.EmbeddingRepository;
+import com.aiassistant.repository.FaqDocRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Deletes everything a tenant has stored, in the background.
+ * Rows are removed with plain SQL deletes over consecutive id ranges of the tenant's documents,
+ * one short transaction per range, so a big tenant never holds long locks or loads its rows into the heap.
+ */
+@Service
+public class TenantPurgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantPurgeService.class);
+
+    private final FaqDocRepository faqDocRepository;
+    private final EmbeddingRepository embeddingRepository;
+    private final ChangeEventBus changeEventBus;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+
+    // clients with a purge queued or running
+    private final Set<Long> purging = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.purge.batch-size:1000}")
+    private int batchSize;
+
+    // breathing room for other tenants' queries between batches
+    @Value("${app.purge.pause-ms:20}")
+    private long pauseMs;
+
+    public TenantPurgeService(FaqDocRepository faqDocRepository, EmbeddingRepository embeddingRepository,
+            ChangeEventBus changeEventBus, PlatformTransactionManager transactionManager) {
+        this.faqDocRepository = faqDocRepository;
+        this.embeddingRepository = embeddingRepository;
+        this.changeEventBus = changeEventBus;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // one purge at a time keeps the delete load predictable
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "tenant-purge");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Queues deletion of all documents and embeddings of a client.
+     *
+     * @return false if a purge for this client is already queued or running.
+     */
+    public boolean purge(Long clientId) {
+        if (!purging.add(clientId)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> DataSourceWorkload.bulk(() -> run(clientId)));
+        } catch (RuntimeException e) {
+            purging.remove(clientId);
+            throw e;
+        }
+        return true;
+    }
+
+    public boolean isPurging(Long clientId) {
+        return purging.contains(clientId);
+    }
+
+    private void run(Long clientId) {
+        long start = System.currentTimeMillis();
+        long docs = 0;
+        long embeddings = 0;
+        evictCaches(clientId);
+        try {
+            // rows added after this point belong to a new upload and are left alone
+            Long lastId = faqDocRepository.findMaxIdByClientId(clientId);
+            long afterId = 0;
+            while (lastId != null) {
+                Long upperId = faqDocRepository.findBatchUpperBound(clientId, afterId, lastId, batchSize);
+                if (upperId == null) {
+                    break;
+                }
+                long from = afterId;
+                int[] deleted = transactionTemplate.execute(status -> new int[] {
+                        embeddingRepository.deleteByClientIdAndDocIdRange(clientId, from, upperId),
+                        faqDocRepository.deleteByClientIdAndIdRange(clientId, from, upperId) });
+                embeddings += deleted[0];
+                docs += deleted[1];
+                afterId = upperId;
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+            log.info("Purged client ID {} in {}ms: {} documents, {} embeddings", clientId,
+                    System.currentTimeMillis() - start, docs, embeddings);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Purge of client ID {} interrupted after {} documents", clientId, docs);
+        } catch (Exception e) {
+            log.error("Purge of client ID {} failed after {} documents", clientId, docs, e);
+        } finally {
+            // lookups made while the purge ran may have cached rows that are gone now
+            evictCaches(clientId);
+            purging.remove(clientId);
+        }
+    }
+
+    private void evictCaches(Long clientId) {
+        changeEventBus.publish(new ChangeEvent.TenantPurged(clientId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
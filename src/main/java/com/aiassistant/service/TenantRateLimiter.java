@@ -0,0 +1,105 @@
+package com.aiassistant.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission state of one tenant: a token bucket for the request rate and a cap on open streams.
+ * The bucket is kept as a single "theoretical arrival time" (GCRA), so admitting a request is one
+ * compare-and-set and no thread ever blocks on another tenant or on another request of the same one.
+ */
+final class TenantRateLimiter {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    // time at which the bucket is full again, in System.nanoTime() units
+    private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    private final Long clientId;
+
+    // replaced as a whole when the client's limits are reloaded
+    private volatile Limits limits;
+
+    TenantRateLimiter(Long clientId, int perMinute, int burst, int maxStreams) {
+        this.clientId = clientId;
+        updateLimits(perMinute, burst, maxStreams);
+    }
+
+    Long clientId() {
+        return clientId;
+    }
+
+    void updateLimits(int perMinute, int burst, int maxStreams) {
+        this.limits = new Limits(perMinute, burst, maxStreams);
+    }
+
+    /**
+     * Takes one stream slot and one token.
+     *
+     * @return 0 if admitted, otherwise the nanoseconds until a retry can succeed.
+     */
+    long tryAcquire() {
+        Limits current = limits;
+        if (!acquireStream(current)) {
+            // nothing tells us when a stream ends, a second is a sensible backoff
+            return TimeUnit.SECONDS.toNanos(1);
+        }
+        long wait = acquireToken(current);
+        if (wait > 0) {
+            releaseStream();
+        }
+        return wait;
+    }
+
+    void releaseStream() {
+        openStreams.decrementAndGet();
+    }
+
+    int openStreams() {
+        return openStreams.get();
+    }
+
+    private boolean acquireStream(Limits current) {
+        if (current.maxStreams() <= 0) {
+            openStreams.incrementAndGet();
+            return true;
+        }
+        while (true) {
+            int open = openStreams.get();
+            if (open >= current.maxStreams()) {
+                return false;
+            }
+            if (openStreams.compareAndSet(open, open + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private long acquireToken(Limits current) {
+        if (current.interval() <= 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long next = (tat - now < 0 ? now : tat) + current.interval();
+            long allowedAt = next - current.burstWindow();
+            if (allowedAt - now > 0) {
+                return allowedAt - now;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private record Limits(long interval, long burstWindow, int maxStreams) {
+        Limits(int perMinute, int burst, int maxStreams) {
+            this(perMinute > 0 ? NANOS_PER_MINUTE / perMinute : 0,
+                    perMinute > 0 ? (NANOS_PER_MINUTE / perMinute) * Math.max(burst, 1) : 0,
+                    maxStreams);
+        }
+    }
+}
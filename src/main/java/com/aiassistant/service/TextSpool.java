@@ -0,0 +1,86 @@
+package com.aiassistant.service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Disk-backed buffer for document text.
+ * Text is written as UTF-16 and read back as a memory-mapped CharSequence, so very large
+ * documents can be chunked by offset without ever being held on the heap.
+ */
+public class TextSpool implements Closeable {
+
+    private final Path file;
+    private final Writer writer;
+    private FileChannel channel;
+    private boolean writing = true;
+
+    public TextSpool() throws IOException {
+        this.file = Files.createTempFile("docuchat-text-", ".spool");
+        this.writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_16BE), 64 * 1024);
+    }
+
+    // where the text goes, only valid until asCharSequence() is called
+    public Writer writer() {
+        if (!writing) {
+            throw new IllegalStateException("Spool is already closed for writing");
+        }
+        return writer;
+    }
+
+    public void append(Reader reader) throws IOException {
+        reader.transferTo(writer());
+    }
+
+    /**
+     * Finishes writing and maps the spooled text back in.
+     * The result stays valid until this spool is closed.
+     */
+    public CharSequence asCharSequence() throws IOException {
+        if (writing) {
+            writer.close();
+            writing = false;
+        }
+        if (channel == null) {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Document is too large to map: " + size + " bytes");
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        return buffer.asCharBuffer(); // big endian, matches UTF_16BE
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (writing) {
+                writer.close();
+                writing = false;
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException ignored) {
+            // nothing useful to do, the file is deleted below anyway
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // temp dir gets cleaned eventually
+            }
+        }
+    }
+}
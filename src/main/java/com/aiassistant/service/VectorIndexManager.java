@@ -0,0 +1,599 @@
+package com.aiassistant.service;
+
+import com.aiassistant.config.DataSourceWorkload;
+import com.aiassistant.dto.VectorIndexStatus;
+import com.aiassistant.events.ChangeEvent;
+import com.aiassistant.events.ChangeEventBus;
+import com.aiassistant.repository.EmbeddingVectorRepository;
+import com.aiassistant.repository.PgVector;
+import com.aiassistant.repository.VectorQuantization;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the pgvector index on embeddings matched to the data and tunes how hard each query searches it.
+ * <ul>
+ * <li>Builds the configured index type (ivfflat or hnsw) over the configured {@link VectorQuantization}
+ * with CREATE INDEX CONCURRENTLY and swaps it in. This happens when the type, quantization or hnsw
+ * parameters change, or when an ivfflat index was trained on {@code growth-factor} times fewer rows than
+ * the table now has.</li>
+ * <li>Every {@code tune-interval-minutes} one node measures recall of the search as served (quantized
+ * candidates plus re-ranking) against an exact scan for a sample of stored vectors. It then raises or
+ * lowers ivfflat.probes / hnsw.ef_search toward the recall and latency targets.</li>
+ * </ul>
+ * The outcome lives in vector_index_state, shared by all nodes; each search applies the current value
+ * with a transaction-local set_config. Changes to it are pushed to the other nodes as a
+ * {@link ChangeEvent.VectorIndexChanged}, and replaced indexes are only dropped two check intervals
+ * later, so a node that missed the event still searches an index matching the state it last read.
+ */
+@Service
+public class VectorIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorIndexManager.class);
+
+    // <table>_vector_idx on each partition of embeddings (or on embeddings itself before V14)
+    private static final String INDEX_SUFFIX = "_vector_idx";
+    // the index a rebuild replaced, kept until every node has moved on to the new one
+    private static final String RETIRED_SUFFIX = INDEX_SUFFIX + "_old";
+    private static final Pattern MEMORY_SETTING = Pattern.compile("\\d+\\s*(kB|MB|GB)");
+    // a build marked BUILDING for longer than this is assumed to have died with its node
+    private static final Duration STALE_BUILD = Duration.ofHours(6);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final JdbcTemplate jdbcTemplate;
+    private final EmbeddingVectorRepository embeddingVectorRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeEventBus changeEventBus;
+    private final ExecutorService buildExecutor;
+
+    // recent search times on this node, for the latency target
+    private final long[] searchMs = new long[256];
+    private int searchNext;
+    private int searchFilled;
+
+    private volatile State state;
+
+    @Value("${app.vector-index.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.vector-index.type:ivfflat}")
+    private String indexType;
+
+    @Value("${app.vector-index.quantization:none}")
+    private String quantization;
+
+    @Value("${app.vector-index.rerank-candidates:200}")
+    private int rerankCandidates;
+
+    @Value("${app.vector-index.check-interval-minutes:10}")
+    private long checkIntervalMinutes;
+
+    @Value("${app.vector-index.min-rows:1000}")
+    private long minRows;
+
+    @Value("${app.vector-index.growth-factor:2.0}")
+    private double growthFactor;
+
+    @Value("${app.vector-index.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${app.vector-index.hnsw.ef-construction:64}")
+    private int hnswEfConstruction;
+
+    @Value("${app.vector-index.maintenance-work-mem:256MB}")
+    private String maintenanceWorkMem;
+
+    @Value("${app.vector-index.target-recall:0.95}")
+    private double targetRecall;
+
+    @Value("${app.vector-index.target-latency-ms:50}")
+    private long targetLatencyMs;
+
+    @Value("${app.vector-index.recall-sample-size:20}")
+    private int recallSampleSize;
+
+    @Value("${app.vector-index.tune-interval-minutes:60}")
+    private long tuneIntervalMinutes;
+
+    @Value("${app.retrieval.max-search-k:10}")
+    private int searchK;
+
+    public VectorIndexManager(JdbcTemplate jdbcTemplate, EmbeddingVectorRepository embeddingVectorRepository,
+            PlatformTransactionManager transactionManager, ChangeEventBus changeEventBus) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.embeddingVectorRepository = embeddingVectorRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.changeEventBus = changeEventBus;
+        // index builds take minutes, they must not hold up the shared scheduler thread
+        this.buildExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "vector-index-build");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // a table holding vectors: one partition of embeddings, or embeddings when it is not partitioned
+    private record IndexTarget(String table, long rows) {
+    }
+
+    private record State(String indexType, String indexParams, String quantization, long rowsAtBuild, String status,
+            Instant startedAt, Instant builtAt, Long buildMs, String lastError, Integer searchParam,
+            Double measuredRecall, Instant tunedAt) {
+    }
+
+    /**
+     * Sets ivfflat.probes or hnsw.ef_search for the rest of the current transaction.
+     * Call inside the transaction that runs the search.
+     */
+    public void applySearchSettings() {
+        State current = state;
+        if (!enabled || current == null || current.searchParam() == null) {
+            return;
+        }
+        applySearchSetting(current.indexType(), VectorQuantization.parse(current.quantization()),
+                current.searchParam());
+    }
+
+    /**
+     * Quantization of the index searches are served by. Searches have to use it, not the configured one,
+     * until a rebuild with the new setting has finished.
+     */
+    public VectorQuantization searchQuantization() {
+        State current = state;
+        if (!enabled || current == null) {
+            return VectorQuantization.NONE;
+        }
+        return VectorQuantization.parse(current.quantization());
+    }
+
+    // rows fetched through a quantized index before re-ranking
+    public int rerankCandidates() {
+        return rerankCandidates;
+    }
+
+    public void recordSearch(long millis) {
+        synchronized (searchMs) {
+            searchMs[searchNext] = millis;
+            searchNext = (searchNext + 1) % searchMs.length;
+            searchFilled = Math.min(searchFilled + 1, searchMs.length);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            refresh();
+        }
+    }
+
+    // another node rebuilt or retuned the index
+    @EventListener
+    public void onVectorIndexChanged(ChangeEvent.VectorIndexChanged event) {
+        if (enabled) {
+            refresh();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.vector-index.check-interval-minutes:10}", initialDelay = 1,
+            timeUnit = TimeUnit.MINUTES)
+    public void check() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            refresh();
+            State current = state;
+            if (current == null || ("BUILDING".equals(current.status()) && current.startedAt() != null
+                    && current.startedAt().isAfter(Instant.now().minus(STALE_BUILD)))) {
+                return;
+            }
+            List<IndexTarget> targets = targets();
+            String reason = rebuildReason(current, targets);
+            if (reason != null) {
+                log.info("Rebuilding vector index: {}", reason);
+                startBuild(targets);
+            } else if ("READY".equals(current.status())) {
+                // every node has refreshed at least once since, even without the change event
+                if (current.builtAt() != null && current.builtAt()
+                        .isBefore(Instant.now().minus(Duration.ofMinutes(2 * checkIntervalMinutes)))) {
+                    buildExecutor.execute(() -> DataSourceWorkload.bulk(this::dropRetired));
+                }
+                tune();
+            }
+        } catch (Exception e) {
+            log.warn("Vector index check failed", e);
+        }
+    }
+
+    /**
+     * Starts a rebuild with the configured settings, e.g. from the admin page.
+     *
+     * @return false if disabled or a build is already running somewhere.
+     */
+    public boolean requestRebuild() {
+        if (!enabled) {
+            return false;
+        }
+        return startBuild(targets());
+    }
+
+    public VectorIndexStatus status() {
+        VectorIndexStatus status = new VectorIndexStatus();
+        status.setTargetRecall(targetRecall);
+        status.setP95SearchMs(p95SearchMs());
+        State current = state;
+        if (!enabled || current == null) {
+            status.setStatus("DISABLED");
+            return status;
+        }
+        status.setIndexType(current.indexType());
+        status.setIndexParams(current.indexParams());
+        status.setQuantization(current.quantization());
+        status.setRerankCandidates(VectorQuantization.parse(current.quantization()).reranks() ? rerankCandidates : 0);
+        status.setStatus(current.status());
+        List<IndexTarget> targets = targets();
+        status.setRows(targets.stream().mapToLong(IndexTarget::rows).sum());
+        status.setIndexBytes(indexBytes(targets));
+        status.setRowsAtBuild(current.rowsAtBuild());
+        status.setBuiltAt(current.builtAt());
+        status.setBuildMs(current.buildMs());
+        status.setLastError(current.lastError());
+        status.setSearchSetting(searchSetting(current.indexType()));
+        status.setSearchParam(current.searchParam());
+        status.setMeasuredRecall(current.measuredRecall());
+        status.setTunedAt(current.tunedAt());
+        return status;
+    }
+
+    // null when the current index still fits
+    private String rebuildReason(State current, List<IndexTarget> targets) {
+        for (IndexTarget target : targets) {
+            Integer present = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pg_indexes WHERE tablename = ? AND indexname = ?", Integer.class,
+                    target.table(), target.table() + INDEX_SUFFIX);
+            if (present == null || present == 0) {
+                return "no vector index on " + target.table();
+            }
+        }
+        long rows = targets.stream().mapToLong(IndexTarget::rows).sum();
+        if (!current.indexType().equals(indexType)) {
+            return "type changed from " + current.indexType() + " to " + indexType;
+        }
+        String configured = VectorQuantization.parse(quantization).key();
+        if (!configured.equals(current.quantization())) {
+            return "quantization changed from " + current.quantization() + " to " + configured;
+        }
+        if ("hnsw".equals(indexType)) {
+            String params = buildParams(targets);
+            return params.equals(current.indexParams()) ? null : "parameters changed to " + params;
+        }
+        // ivfflat centroids are trained on the rows present at build time
+        if (rows >= minRows && rows >= Math.max(1, current.rowsAtBuild()) * growthFactor) {
+            return "table grew from " + current.rowsAtBuild() + " to " + rows + " rows";
+        }
+        return null;
+    }
+
+    private boolean startBuild(List<IndexTarget> targets) {
+        if (!"ivfflat".equals(indexType) && !"hnsw".equals(indexType)) {
+            throw new RuntimeException("Unsupported vector index type: " + indexType);
+        }
+        Instant now = Instant.now();
+        int claimed = jdbcTemplate.update("""
+                UPDATE vector_index_state SET status = 'BUILDING', build_owner = ?, started_at = ?, last_error = NULL
+                WHERE id = 1 AND (status <> 'BUILDING' OR started_at < ?)
+                """, nodeId, Timestamp.from(now), Timestamp.from(now.minus(STALE_BUILD)));
+        if (claimed == 0) {
+            return false;
+        }
+        String type = indexType;
+        VectorQuantization quantized = VectorQuantization.parse(quantization);
+        buildExecutor.execute(() -> DataSourceWorkload.bulk(() -> build(type, quantized, targets)));
+        return true;
+    }
+
+    // partitioned tables don't support CREATE INDEX CONCURRENTLY, so each partition gets its own index
+    private void build(String type, VectorQuantization quantized, List<IndexTarget> targets) {
+        long start = System.currentTimeMillis();
+        int dimensions = dimensions();
+        String params = buildParams(targets);
+        long rows = targets.stream().mapToLong(IndexTarget::rows).sum();
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                // CONCURRENTLY cannot run inside a transaction, this runs on an autocommit connection
+                try (Statement st = connection.createStatement()) {
+                    if (MEMORY_SETTING.matcher(maintenanceWorkMem).matches()) {
+                        st.execute("SET maintenance_work_mem = '" + maintenanceWorkMem + "'");
+                    }
+                    st.execute("SET statement_timeout = 0");
+                    try {
+                        for (IndexTarget target : targets) {
+                            String newIndex = target.table() + INDEX_SUFFIX + "_new";
+                            // leftover of a failed build, possibly INVALID
+                            st.execute("DROP INDEX CONCURRENTLY IF EXISTS " + newIndex);
+                            st.execute("CREATE INDEX CONCURRENTLY " + newIndex + " ON " + target.table() + " USING "
+                                    + type + " (" + quantized.indexExpression(dimensions) + ") WITH ("
+                                    + targetParams(type, target) + ")");
+                        }
+                        // old indexes serve queries until every new one is ready, and are only renamed
+                        // here: searches on nodes still using the old quantization keep their index until
+                        // dropRetired, well after vector_index_state is updated below
+                        for (IndexTarget target : targets) {
+                            String index = target.table() + INDEX_SUFFIX;
+                            st.execute("DROP INDEX CONCURRENTLY IF EXISTS " + target.table() + RETIRED_SUFFIX);
+                            st.execute("ALTER INDEX IF EXISTS " + index + " RENAME TO " + target.table()
+                                    + RETIRED_SUFFIX);
+                            st.execute("ALTER INDEX " + index + "_new RENAME TO " + index);
+                        }
+                    } finally {
+                        st.execute("RESET maintenance_work_mem");
+                        st.execute("RESET statement_timeout");
+                    }
+                }
+                return null;
+            });
+            long took = System.currentTimeMillis() - start;
+            jdbcTemplate.update("""
+                    UPDATE vector_index_state SET index_type = ?, index_params = ?, quantization = ?,
+                    rows_at_build = ?, status = 'READY', build_owner = NULL, built_at = ?, build_ms = ?,
+                    search_param = ?, measured_recall = NULL, tuned_at = NULL
+                    WHERE id = 1
+                    """, type, params, quantized.key(), rows, Timestamp.from(Instant.now()), took,
+                    initialSearchParam(type, params));
+            log.info("Built {} {} vector indexes ({}) on {} tables over {} rows in {}ms, {} bytes", type,
+                    quantized.key(), params, targets.size(), rows, took, indexBytes(targets));
+        } catch (Exception e) {
+            log.error("Building {} vector index ({}) failed", type, params, e);
+            jdbcTemplate.update("UPDATE vector_index_state SET status = 'FAILED', build_owner = NULL, last_error = ? "
+                    + "WHERE id = 1", String.valueOf(e.getMessage()));
+        } finally {
+            refresh();
+            changeEventBus.publish(new ChangeEvent.VectorIndexChanged(null));
+        }
+    }
+
+    // indexes replaced by the last build, no node searches them any more
+    private void dropRetired() {
+        List<String> retired = jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE indexname LIKE ?", String.class, "%" + RETIRED_SUFFIX);
+        for (String index : retired) {
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + index);
+            log.info("Dropped replaced vector index {}", index);
+        }
+    }
+
+    // one node per interval measures recall and moves the search setting toward the targets
+    private void tune() {
+        Instant now = Instant.now();
+        int claimed = jdbcTemplate.update("""
+                UPDATE vector_index_state SET tuned_at = ?
+                WHERE id = 1 AND status = 'READY' AND (tuned_at IS NULL OR tuned_at < ?)
+                """, Timestamp.from(now), Timestamp.from(now.minus(Duration.ofMinutes(tuneIntervalMinutes))));
+        if (claimed == 0) {
+            return;
+        }
+        State current = state;
+        int param = current.searchParam() != null ? current.searchParam()
+                : initialSearchParam(current.indexType(), current.indexParams());
+        VectorQuantization quantized = VectorQuantization.parse(current.quantization());
+        Double recall = DataSourceWorkload.bulk(() -> measureRecall(current.indexType(), quantized, param));
+        if (recall == null) {
+            return;
+        }
+        // ef_search is raised to the candidate count anyway when re-ranking
+        int min = "hnsw".equals(current.indexType()) ? (quantized.reranks() ? rerankCandidates : searchK) : 1;
+        int max = "hnsw".equals(current.indexType()) ? 1000 : Math.max(1, lists(current.indexParams()));
+        Long p95 = p95SearchMs();
+        int next = param;
+        if (recall < targetRecall) {
+            next = Math.min(max, (int) Math.ceil(param * 1.5));
+        } else if (recall >= targetRecall + 0.02 && p95 != null && p95 > targetLatencyMs) {
+            next = Math.max(min, (int) Math.floor(param * 0.8));
+        }
+        next = Math.max(min, Math.min(max, next));
+        jdbcTemplate.update("UPDATE vector_index_state SET search_param = ?, measured_recall = ? WHERE id = 1",
+                next, recall);
+        log.info("Vector search recall {} ({}, {} candidates) at {}={}, p95 {}ms, next {}",
+                String.format("%.3f", recall), quantized.key(), quantized.reranks() ? rerankCandidates : searchK,
+                searchSetting(current.indexType()), param, p95, next);
+        refresh();
+        changeEventBus.publish(new ChangeEvent.VectorIndexChanged(null));
+    }
+
+    // share of the exact top k that the served search returns, averaged over a sample of stored vectors
+    private Double measureRecall(String type, VectorQuantization quantized, int param) {
+        Long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM embeddings", Long.class);
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM embeddings", Long.class);
+        if (minId == null || maxId == null) {
+            return null;
+        }
+        double total = 0;
+        int measured = 0;
+        for (int i = 0; i < recallSampleSize; i++) {
+            long from = ThreadLocalRandom.current().nextLong(minId, maxId + 1);
+            List<Object[]> sample = jdbcTemplate.query("""
+                    SELECT e.client_id, e.vector_data_pgvector::text FROM embeddings e
+                    WHERE e.id >= ? AND e.vector_data_pgvector IS NOT NULL
+                    ORDER BY e.id LIMIT 1
+                    """, (rs, n) -> {
+                PgVector parsed = new PgVector();
+                parsed.setValue(rs.getString(2));
+                return new Object[] { rs.getLong(1), parsed.toArray() };
+            }, from);
+            if (sample.isEmpty()) {
+                continue;
+            }
+            long clientId = (Long) sample.get(0)[0];
+            float[] vector = (float[]) sample.get(0)[1];
+            Double recall = transactionTemplate.execute(status -> {
+                applySearchSetting(type, quantized, param);
+                Set<Long> approx = new HashSet<>(embeddingVectorRepository.findNearestIds(clientId, vector, searchK,
+                        quantized, rerankCandidates));
+                // full precision, no index
+                jdbcTemplate.queryForObject("SELECT set_config('enable_indexscan', 'off', true)", String.class);
+                List<Long> exact = embeddingVectorRepository.findNearestIds(clientId, vector, searchK,
+                        VectorQuantization.NONE, 0);
+                if (exact.isEmpty()) {
+                    return null;
+                }
+                return (double) exact.stream().filter(approx::contains).count() / exact.size();
+            });
+            if (recall != null) {
+                total += recall;
+                measured++;
+            }
+        }
+        return measured == 0 ? null : total / measured;
+    }
+
+    private void refresh() {
+        try {
+            List<State> rows = jdbcTemplate.query("""
+                    SELECT index_type, index_params, quantization, rows_at_build, status, started_at, built_at,
+                    build_ms, last_error, search_param, measured_recall, tuned_at
+                    FROM vector_index_state WHERE id = 1
+                    """, (rs, i) -> new State(rs.getString(1), rs.getString(2), rs.getString(3), rs.getLong(4),
+                    rs.getString(5), instant(rs.getTimestamp(6)), instant(rs.getTimestamp(7)),
+                    rs.getObject(8, Long.class), rs.getString(9), rs.getObject(10, Integer.class),
+                    rs.getObject(11, Double.class), instant(rs.getTimestamp(12))));
+            state = rows.isEmpty() ? null : rows.get(0);
+        } catch (Exception e) {
+            log.warn("Could not read vector index state", e);
+        }
+    }
+
+    private List<IndexTarget> targets() {
+        List<String> tables = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'embeddings'::regclass ORDER BY c.relname
+                """, String.class);
+        if (tables.isEmpty()) {
+            tables = List.of("embeddings");
+        }
+        return tables.stream().map(table -> new IndexTarget(table, estimateRows(table))).toList();
+    }
+
+    private long estimateRows(String table) {
+        Long estimate = jdbcTemplate.queryForObject(
+                "SELECT reltuples::bigint FROM pg_class WHERE oid = CAST(? AS regclass)", Long.class, table);
+        if (estimate == null || estimate < 0) {
+            // never analyzed
+            estimate = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        }
+        return estimate != null ? estimate : 0;
+    }
+
+    // declared dimensions of the vector column, which the quantized index expressions cast to
+    private int dimensions() {
+        Integer dimensions = jdbcTemplate.queryForObject("""
+                SELECT atttypmod FROM pg_attribute
+                WHERE attrelid = 'embeddings'::regclass AND attname = 'vector_data_pgvector'
+                """, Integer.class);
+        if (dimensions == null || dimensions <= 0) {
+            throw new RuntimeException("embeddings.vector_data_pgvector has no declared dimensions");
+        }
+        return dimensions;
+    }
+
+    private long indexBytes(List<IndexTarget> targets) {
+        long total = 0;
+        for (IndexTarget target : targets) {
+            Long bytes = jdbcTemplate.queryForObject(
+                    "SELECT pg_relation_size(to_regclass(?))", Long.class, target.table() + INDEX_SUFFIX);
+            total += bytes != null ? bytes : 0;
+        }
+        return total;
+    }
+
+    private void applySearchSetting(String type, VectorQuantization quantized, int param) {
+        // hnsw returns at most ef_search rows, the re-ranked candidates must all come through
+        int value = "hnsw".equals(type) && quantized.reranks() ? Math.max(param, rerankCandidates) : param;
+        jdbcTemplate.queryForObject("SELECT set_config(?, ?, true)", String.class, searchSetting(type),
+                String.valueOf(value));
+    }
+
+    // what vector_index_state records: the hnsw parameters, or the lists of the largest table
+    private String buildParams(List<IndexTarget> targets) {
+        if ("hnsw".equals(indexType)) {
+            return "m=" + hnswM + ",ef_construction=" + hnswEfConstruction;
+        }
+        return "lists=" + targets.stream().mapToLong(t -> ivfflatLists(t.rows())).max().orElse(10);
+    }
+
+    private String targetParams(String type, IndexTarget target) {
+        if ("hnsw".equals(type)) {
+            return "m=" + hnswM + ",ef_construction=" + hnswEfConstruction;
+        }
+        return "lists=" + ivfflatLists(target.rows());
+    }
+
+    // pgvector's guidance: rows / 1000 up to 1M rows, sqrt(rows) above
+    private static long ivfflatLists(long rows) {
+        return rows <= 1_000_000 ? Math.max(10, rows / 1000) : (long) Math.sqrt(rows);
+    }
+
+    private int initialSearchParam(String type, String params) {
+        if ("hnsw".equals(type)) {
+            return Math.max(40, searchK);
+        }
+        return Math.max(1, (int) Math.round(Math.sqrt(lists(params))));
+    }
+
+    private static int lists(String params) {
+        return Arrays.stream(params.split(","))
+                .filter(p -> p.trim().startsWith("lists="))
+                .map(p -> Integer.parseInt(p.trim().substring("lists=".length())))
+                .findFirst()
+                .orElse(100);
+    }
+
+    private static String searchSetting(String type) {
+        return "hnsw".equals(type) ? "hnsw.ef_search" : "ivfflat.probes";
+    }
+
+    private Long p95SearchMs() {
+        long[] copy;
+        synchronized (searchMs) {
+            copy = Arrays.copyOf(searchMs, searchFilled);
+        }
+        if (copy.length == 0) {
+            return null;
+        }
+        Arrays.sort(copy);
+        return copy[(int) Math.ceil(copy.length * 0.95) - 1];
+    }
+
+    private static Instant instant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        buildExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,36 @@
+package com.aiassistant.vector;
+
+// Plain loops, used when the Vector API module is not available.
+final class ScalarKernels implements VectorKernels {
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        // two sums so consecutive multiply-adds don't wait on each other
+        float sum0 = 0;
+        float sum1 = 0;
+        int i = 0;
+        for (; i + 1 < length; i += 2) {
+            sum0 += a[aOffset + i] * b[bOffset + i];
+            sum1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+        }
+        if (i < length) {
+            sum0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum0 + sum1;
+    }
+
+    @Override
+    public float l2Squared(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            float diff = a[aOffset + i] - b[bOffset + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
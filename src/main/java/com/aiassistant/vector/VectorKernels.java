@@ -0,0 +1,19 @@
+package com.aiassistant.vector;
+
+// The loops behind VectorMath, one implementation per instruction set. Rows are stored back to back.
+interface VectorKernels {
+
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    float l2Squared(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    // scores[i] = dot(query, row i of matrix) for the first count rows
+    default void dotAll(float[] query, float[] matrix, int count, float[] scores) {
+        int dimensions = query.length;
+        for (int row = 0; row < count; row++) {
+            scores[row] = dot(query, 0, matrix, row * dimensions, dimensions);
+        }
+    }
+
+    String name();
+}
@@ -0,0 +1,97 @@
+package com.aiassistant.vector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Similarity math on float vectors for everything computed in process. The kernels are picked once at
+ * startup: SIMD through the Vector API when the JVM runs with {@code --add-modules jdk.incubator.vector}
+ * (see the Dockerfile), plain loops otherwise. {@code -Ddocuchat.vector-math.simd=false} forces the
+ * plain loops.
+ * <p>
+ * For one-vs-many scoring keep the vectors in one array, row after row, and normalize them up front so
+ * cosine similarity is a single dot product per row that streams through memory.
+ */
+public final class VectorMath {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorMath.class);
+
+    private static final VectorKernels KERNELS = selectKernels();
+
+    private VectorMath() {
+    }
+
+    public static float dot(float[] a, float[] b) {
+        checkLength(a, b);
+        return KERNELS.dot(a, 0, b, 0, a.length);
+    }
+
+    public static float norm(float[] a) {
+        return (float) Math.sqrt(KERNELS.dot(a, 0, a, 0, a.length));
+    }
+
+    // 0 when either vector is all zeros
+    public static float cosine(float[] a, float[] b) {
+        checkLength(a, b);
+        float normA = norm(a);
+        float normB = norm(b);
+        if (normA == 0 || normB == 0) {
+            return 0;
+        }
+        return KERNELS.dot(a, 0, b, 0, a.length) / (normA * normB);
+    }
+
+    public static float l2Squared(float[] a, float[] b) {
+        checkLength(a, b);
+        return KERNELS.l2Squared(a, 0, b, 0, a.length);
+    }
+
+    // a unit length copy, or a copy of the zero vector
+    public static float[] normalized(float[] a) {
+        float[] copy = a.clone();
+        float norm = norm(a);
+        if (norm != 0) {
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] /= norm;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Dot product of the query with each of the first {@code count} rows of {@code matrix}, where row i
+     * takes {@code matrix[i * query.length]} onwards. Cosine similarity when both sides are normalized.
+     */
+    public static void dotAll(float[] query, float[] matrix, int count, float[] scores) {
+        if ((long) count * query.length > matrix.length || count > scores.length) {
+            throw new IllegalArgumentException("matrix or scores too small for " + count + " rows");
+        }
+        KERNELS.dotAll(query, matrix, count, scores);
+    }
+
+    // which kernels are in use, for logs and diagnostics
+    public static String implementation() {
+        return KERNELS.name();
+    }
+
+    private static void checkLength(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("vector lengths differ: " + a.length + " and " + b.length);
+        }
+    }
+
+    private static VectorKernels selectKernels() {
+        if (Boolean.parseBoolean(System.getProperty("docuchat.vector-math.simd", "true"))) {
+            try {
+                // loaded by name, linking SimdKernels fails when the incubator module is not in the boot layer
+                VectorKernels simd = (VectorKernels) Class.forName("com.aiassistant.vector.SimdKernels")
+                        .getDeclaredConstructor().newInstance();
+                log.info("Vector math using {} kernels", simd.name());
+                return simd;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.info("Vector API not available ({}), vector math using scalar kernels", e.toString());
+            }
+        }
+        return new ScalarKernels();
+    }
+}
@@ -0,0 +1,5 @@
+-- Per-client admission limits for the chat stream, NULL falls back to the app.rate-limit defaults
+-- and a value of 0 or less means unlimited.
+ALTER TABLE clients ADD COLUMN rate_limit_per_minute INTEGER;
+ALTER TABLE clients ADD COLUMN rate_limit_burst INTEGER;
+ALTER TABLE clients ADD COLUMN max_concurrent_streams INTEGER;
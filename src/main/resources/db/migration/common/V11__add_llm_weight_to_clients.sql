@@ -0,0 +1,2 @@
+-- Relative share of the chat-completion slots a client gets while requests are queueing, NULL means 1.
+ALTER TABLE clients ADD COLUMN llm_weight INTEGER;
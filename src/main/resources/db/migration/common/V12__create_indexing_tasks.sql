@@ -0,0 +1,20 @@
+-- Indexing work shared by all nodes. Each row covers the client's documents with
+-- after_doc_id < id <= upper_doc_id; a node claims it by taking a lease and extends the
+-- lease while it works, so the row goes back to the pool if the node dies.
+CREATE TABLE indexing_tasks (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    client_id INTEGER NOT NULL,
+    after_doc_id BIGINT NOT NULL,
+    upper_doc_id BIGINT NOT NULL,
+    status VARCHAR(16) NOT NULL, -- PENDING, RUNNING or FAILED, finished tasks are deleted
+    attempts INTEGER NOT NULL DEFAULT 0,
+    lease_owner VARCHAR(64),
+    lease_expires_at TIMESTAMP WITH TIME ZONE,
+    available_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    last_error TEXT,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (client_id) REFERENCES clients(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_indexing_tasks_status ON indexing_tasks (status, available_at);
+CREATE INDEX idx_indexing_tasks_client_id ON indexing_tasks (client_id, upper_doc_id);
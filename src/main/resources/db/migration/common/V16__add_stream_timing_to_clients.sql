@@ -0,0 +1,2 @@
+-- Sends the client's widget a timing event after each answer (time to first token, stream time), NULL means off.
+ALTER TABLE clients ADD COLUMN stream_timing BOOLEAN;
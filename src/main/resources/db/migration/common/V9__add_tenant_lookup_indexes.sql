@@ -0,0 +1,4 @@
+-- Lookups and set-based deletes by tenant walk faq_docs by (client_id, id),
+-- and removing documents must not scan embeddings for every doc_id.
+CREATE INDEX IF NOT EXISTS idx_faq_docs_client_id ON faq_docs (client_id, id);
+CREATE INDEX IF NOT EXISTS idx_embeddings_doc_id ON embeddings (doc_id);
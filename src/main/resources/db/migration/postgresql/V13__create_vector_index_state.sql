@@ -0,0 +1,21 @@
+-- State of the managed pgvector index on embeddings, one row shared by all nodes.
+-- Written by VectorIndexManager when it rebuilds the index or retunes the per-query search setting.
+CREATE TABLE vector_index_state (
+    id INTEGER PRIMARY KEY,
+    index_type TEXT NOT NULL, -- ivfflat or hnsw
+    index_params TEXT NOT NULL, -- e.g. lists=100 or m=16,ef_construction=64
+    rows_at_build BIGINT NOT NULL DEFAULT 0,
+    status TEXT NOT NULL, -- READY, BUILDING or FAILED
+    build_owner TEXT,
+    started_at TIMESTAMP WITH TIME ZONE,
+    built_at TIMESTAMP WITH TIME ZONE,
+    build_ms BIGINT,
+    last_error TEXT,
+    search_param INTEGER, -- ivfflat.probes or hnsw.ef_search, NULL until first tuned
+    measured_recall DOUBLE PRECISION,
+    tuned_at TIMESTAMP WITH TIME ZONE
+);
+
+-- the index from V8 was trained on an empty table, so it counts as built with 0 rows
+INSERT INTO vector_index_state (id, index_type, index_params, rows_at_build, status)
+VALUES (1, 'ivfflat', 'lists=100', 0, 'READY');
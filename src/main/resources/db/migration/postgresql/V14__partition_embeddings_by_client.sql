@@ -0,0 +1,65 @@
+-- Embeddings carry their document's client_id and are hash partitioned on it, so a tenant's vector
+-- search only scans the partition holding that tenant, with that partition's own vector index.
+-- The table is rebuilt by copying: on a large install run this in a maintenance window.
+
+-- 1. denormalize client_id
+ALTER TABLE embeddings ADD COLUMN client_id INTEGER;
+UPDATE embeddings e SET client_id = d.client_id FROM faq_docs d WHERE d.id = e.doc_id;
+DELETE FROM embeddings WHERE client_id IS NULL;
+
+-- 2. partitioned copy, the primary key has to include the partition key
+CREATE TABLE embeddings_partitioned (
+    id INTEGER NOT NULL DEFAULT nextval('embeddings_id_seq'),
+    client_id INTEGER NOT NULL,
+    doc_id INTEGER NOT NULL,
+    vector_data TEXT NOT NULL,
+    vector_data_pgvector vector(768),
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, client_id),
+    FOREIGN KEY (doc_id) REFERENCES faq_docs(id) ON DELETE CASCADE
+) PARTITION BY HASH (client_id);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE embeddings_p%s PARTITION OF embeddings_partitioned '
+                       'FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+    END LOOP;
+END $$;
+
+INSERT INTO embeddings_partitioned (id, client_id, doc_id, vector_data, vector_data_pgvector, created_at)
+SELECT id, client_id, doc_id, vector_data, vector_data_pgvector, created_at FROM embeddings;
+
+-- 3. swap, the id sequence moves over to the new table
+ALTER SEQUENCE embeddings_id_seq OWNED BY NONE;
+DROP TABLE embeddings;
+ALTER TABLE embeddings_partitioned RENAME TO embeddings;
+ALTER SEQUENCE embeddings_id_seq OWNED BY embeddings.id;
+
+CREATE INDEX idx_embeddings_doc_id ON embeddings (doc_id);
+CREATE INDEX idx_embeddings_client_id ON embeddings (client_id, doc_id);
+
+-- 4. one vector index per partition, trained on the rows it now holds (VectorIndexManager takes over from here)
+DO $$
+DECLARE
+    part_rows BIGINT;
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('SELECT COUNT(*) FROM embeddings_p%s', i) INTO part_rows;
+        EXECUTE format('CREATE INDEX embeddings_p%s_vector_idx ON embeddings_p%s '
+                       'USING ivfflat (vector_data_pgvector vector_cosine_ops) WITH (lists = %s)',
+                       i, i, GREATEST(10, part_rows / 1000));
+    END LOOP;
+END $$;
+
+UPDATE vector_index_state
+SET index_type = 'ivfflat',
+    index_params = 'lists=' || GREATEST(10, (SELECT MAX(c) FROM (
+        SELECT COUNT(*) / 1000 AS c FROM embeddings GROUP BY tableoid) per_partition)),
+    rows_at_build = (SELECT COUNT(*) FROM embeddings),
+    status = 'READY',
+    built_at = CURRENT_TIMESTAMP,
+    search_param = NULL,
+    measured_recall = NULL,
+    tuned_at = NULL
+WHERE id = 1;
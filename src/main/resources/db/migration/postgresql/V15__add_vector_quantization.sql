@@ -0,0 +1,4 @@
+-- Quantization the managed vector index was built over: none, halfvec or binary.
+-- Searches follow this column rather than the configuration, so they keep matching the index expression
+-- until a rebuild with a new setting has been swapped in.
+ALTER TABLE vector_index_state ADD COLUMN quantization TEXT NOT NULL DEFAULT 'none';
@@ -0,0 +1,4 @@
+-- Embeddings carry their document's client_id (the postgres schema partitions on it).
+ALTER TABLE embeddings ADD COLUMN client_id INTEGER;
+UPDATE embeddings SET client_id = (SELECT d.client_id FROM faq_docs d WHERE d.id = embeddings.doc_id);
+CREATE INDEX idx_embeddings_client_id ON embeddings (client_id, doc_id);
@@ -103,6 +103,7 @@
         const input = shadowRoot.querySelector('.docu-input');
         const sendButton = shadowRoot.querySelector('.docu-send');
 
+        const TIMING_EVENT = 'event: timing\n';
         let chatHistory = [];
         let isOpen = false;
 
@@ -132,6 +133,7 @@
                 });
 
                 if (!response.body) throw new Error("Streaming not supported by the browser.");
+                if (response.status === 429) throw new Error("too many questions at once, please try again in a moment.");
                 if (!response.ok) throw new Error(`Network error: ${response.status} ${response.statusText}`);
 
                 const reader = response.body.getReader();
@@ -147,11 +149,18 @@
                     const chunk = decoder.decode(value, { stream: true });
                     if (chunk) {
                         fullBotResponse += chunk;
-                        botMessageElement.innerText = fullBotResponse + '▋';
+                        botMessageElement.innerText = withoutTiming(fullBotResponse) + '▋';
                         messagesContainer.scrollTop = messagesContainer.scrollHeight;
                     }
                 }
 
+                // timing event sent after the answer when enabled for the client, not part of the reply
+                const timingAt = fullBotResponse.indexOf(TIMING_EVENT);
+                if (timingAt >= 0) {
+                    console.debug("DocuChat: timing", fullBotResponse.substring(timingAt + TIMING_EVENT.length).trim(),
+                        "server", response.headers.get('Server-Timing'));
+                    fullBotResponse = fullBotResponse.substring(0, timingAt);
+                }
                 botMessageElement.innerText = fullBotResponse;
                 chatHistory.push('Assistant: ' + fullBotResponse);
 
@@ -170,6 +179,11 @@
             if (e.key === 'Enter') sendMessage();
         });
 
+        function withoutTiming(text) {
+            const timingAt = text.indexOf(TIMING_EVENT);
+            return timingAt >= 0 ? text.substring(0, timingAt) : text;
+        }
+
         function addMessage(text, role) {
             const div = document.createElement('div');
             div.className = `docu-msg ${role}`;
@@ -0,0 +1,96 @@
+package com.aiassistant.service;
+
+import com.aiassistant.service.DocumentChunker.DocumentChunk;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks that the offset-based chunker still cuts documents exactly like the String.split version it
+ * replaced ({@link SplitDocumentChunker}). The fixtures under chunker/ cover question headers of every
+ * style, blank-line and line splits with overlap, separator runs, sentences longer than a chunk and
+ * text without any separator at all.
+ */
+class DocumentChunkerGoldenTest {
+
+    private static final String[] FIXTURES = {
+            "faq-sections.txt", "paragraphs.txt", "lines.txt", "long-sentences.txt", "unbroken.txt" };
+
+    private static final Long DOC_ID = 42L;
+
+    private final DocumentChunker chunker = new DocumentChunker();
+    private final SplitDocumentChunker reference = new SplitDocumentChunker();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "faq-sections.txt", "paragraphs.txt", "lines.txt", "long-sentences.txt", "unbroken.txt" })
+    void streamsSameChunksFromString(String fixture) throws IOException {
+        String text = fixture(fixture);
+
+        try (Stream<DocumentChunk> chunks = chunker.streamChunks(text, DOC_ID)) {
+            assertSameChunks(reference.chunkDocument(text, DOC_ID), chunks.toList());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "faq-sections.txt", "paragraphs.txt", "lines.txt", "long-sentences.txt", "unbroken.txt" })
+    void streamsSameChunksFromReader(String fixture) throws IOException {
+        String text = fixture(fixture);
+
+        try (Stream<DocumentChunk> chunks = chunker.streamChunks(new StringReader(text), DOC_ID)) {
+            assertSameChunks(reference.chunkDocument(text, DOC_ID), chunks.toList());
+        }
+    }
+
+    // small limits, so every fixture goes through each separator and the overlap many times
+    @ParameterizedTest
+    @MethodSource("fixturesAndLimits")
+    void streamsSameChunksWithCustomLimits(String fixture, int maxTokens, int overlapTokens) throws IOException {
+        String text = fixture(fixture);
+
+        // a CharBuffer takes the non-String search path, like the mapped text of a Reader
+        try (Stream<DocumentChunk> chunks = chunker.streamChunks(CharBuffer.wrap(text), DOC_ID,
+                maxTokens, overlapTokens)) {
+            assertSameChunks(reference.chunkDocument(text, DOC_ID, maxTokens, overlapTokens), chunks.toList());
+        }
+    }
+
+    static Stream<Arguments> fixturesAndLimits() {
+        int[][] limits = { { 20, 0 }, { 50, 10 }, { 64, 16 }, { 128, 50 }, { 10, 9 } };
+        return Stream.of(FIXTURES)
+                .flatMap(fixture -> Stream.of(limits)
+                        .map(limit -> Arguments.of(fixture, limit[0], limit[1])));
+    }
+
+    private static void assertSameChunks(List<DocumentChunk> expected, List<DocumentChunk> actual) {
+        assertEquals(expected.size(), actual.size(), "number of chunks");
+        for (int i = 0; i < expected.size(); i++) {
+            DocumentChunk want = expected.get(i);
+            DocumentChunk got = actual.get(i);
+            assertEquals(want.getText(), got.getText(), "text of chunk " + i);
+            assertEquals(want.getChunkIndex(), got.getChunkIndex(), "index of chunk " + i);
+            assertEquals(want.getSectionTitle(), got.getSectionTitle(), "section of chunk " + i);
+            assertEquals(want.getSourceDocId(), got.getSourceDocId(), "document of chunk " + i);
+        }
+    }
+
+    private static String fixture(String name) throws IOException {
+        try (InputStream in = DocumentChunkerGoldenTest.class.getResourceAsStream("/chunker/" + name)) {
+            assertNotNull(in, "missing fixture " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}